@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.posix.MAdviseFlag;
+
+/**
+ * How a memory mapped range is expected to be accessed, passed to the OS with madvise on Linux and ignored elsewhere.
+ */
+public enum AccessHint {
+    /**
+     * The default readahead
+     */
+    NORMAL(MAdviseFlag.MADV_NORMAL),
+    /**
+     * Pages will be read in order, so read ahead aggressively and pages can be dropped soon after they are read
+     */
+    SEQUENTIAL(MAdviseFlag.MADV_SEQUENTIAL),
+    /**
+     * Pages will be read in no particular order, so don't read ahead
+     */
+    RANDOM(MAdviseFlag.MADV_RANDOM),
+    /**
+     * Pages will be needed soon, so start reading them in now
+     */
+    WILLNEED(MAdviseFlag.MADV_WILLNEED),
+    /**
+     * Pages won't be needed soon, so they can be dropped from the page cache. They are reread from the file on next access.
+     */
+    DONTNEED(MAdviseFlag.MADV_DONTNEED),
+    /**
+     * Use transparent huge pages if the kernel supports them for this mapping, typically only for tmpfs e.g. /dev/shm
+     * <p>
+     * A file on a hugetlbfs mount always uses huge pages, provided the chunk and overlap sizes are multiples of
+     * {@link net.openhft.chronicle.bytes.internal.NativeBytesStore#HUGE_PAGE_SIZE}
+     */
+    HUGEPAGE(MAdviseFlag.MADV_HUGEPAGE);
+
+    private final MAdviseFlag mAdviseFlag;
+
+    AccessHint(MAdviseFlag mAdviseFlag) {
+        this.mAdviseFlag = mAdviseFlag;
+    }
+
+    public MAdviseFlag mAdviseFlag() {
+        return mAdviseFlag;
+    }
+}
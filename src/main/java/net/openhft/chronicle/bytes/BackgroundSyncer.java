@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.core.Jvm;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Performs the msync for the stores of a MappedFile using {@link SyncMode#BACKGROUND} on a dedicated thread.
+ * <p>
+ * Each store requests a sync up to a position, and the requests for a store are coalesced into one range from the
+ * last page synced. The thread syncs every {@code mappedFile.backgroundSync.intervalMs}, or sooner when a writer is
+ * more than {@code mappedFile.backgroundSync.thresholdBytes} ahead of what has been synced.
+ * <p>
+ * A store is reserved while it is registered, so the final sync and unmap of a chunk happen on this thread rather
+ * than the writer's.
+ */
+final class BackgroundSyncer implements Runnable {
+    static final long INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(Jvm.getInteger("mappedFile.backgroundSync.intervalMs", 10));
+    static final long THRESHOLD_BYTES = Jvm.getInteger("mappedFile.backgroundSync.thresholdBytes", 1 << 20);
+
+    private final Queue<MappedBytesStore> added = new ConcurrentLinkedQueue<>();
+    // only accessed by the sync thread
+    private final List<MappedBytesStore> stores = new ArrayList<>();
+    private final Thread thread;
+    private boolean closed;
+    private volatile boolean wakeUpRequested;
+
+    BackgroundSyncer(@NotNull String name) {
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Add a store which has been reserved for this syncer
+     *
+     * @return false if this syncer has been closed
+     */
+    synchronized boolean register(@NotNull MappedBytesStore store) {
+        if (closed)
+            return false;
+        added.add(store);
+        return true;
+    }
+
+    /**
+     * Sync now rather than at the end of the interval.
+     */
+    void wakeUp() {
+        if (wakeUpRequested)
+            return;
+        wakeUpRequested = true;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!isClosed()) {
+                LockSupport.parkNanos(this, INTERVAL_NS);
+                syncAll(false);
+            }
+        } finally {
+            syncAll(true);
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void syncAll(boolean release) {
+        wakeUpRequested = false;
+        for (MappedBytesStore store; (store = added.poll()) != null; )
+            stores.add(store);
+
+        for (int i = stores.size() - 1; i >= 0; i--) {
+            final MappedBytesStore store = stores.get(i);
+            try {
+                store.backgroundSync();
+            } catch (Throwable t) {
+                Jvm.warn().on(getClass(), "Failed to sync " + store, t);
+            }
+            // once the syncer is the only user of a store, release it here
+            if ((release || store.refCount() == 1) && store.backgroundSyncReleased(release))
+                stores.remove(i);
+        }
+    }
+
+    /**
+     * Stop the thread after a final sync of every store.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() == thread)
+            return;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive())
+            Jvm.warn().on(getClass(), thread.getName() + " is still running");
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.bytes.internal.NativeBytesStore;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.openhft.chronicle.core.io.ReferenceOwner.INIT;
+
+/**
+ * A bump allocator of fixed capacity Bytes over one native store, for data which lives as long as a request.
+ * <p>
+ * Allocating advances an offset in the store, and {@link #reset()} frees everything allocated at once. The Bytes
+ * returned are views which are reused after a reset, so they must not be used, or released, once the arena is reset.
+ * Unlike {@link Bytes#allocateDirect(long)}, their memory is not zeroed after a reset.
+ * <p>
+ * This class is not thread safe, however an arena can be passed to another thread between resets.
+ */
+public class BytesArena extends AbstractCloseable {
+    private final NativeBytesStore<Void> store;
+    private final int alignment;
+    private final List<PointerBytesStore> pointers = new ArrayList<>();
+    private final List<VanillaBytes<Void>> views = new ArrayList<>();
+    private long used;
+    private int viewsUsed;
+
+    /**
+     * @param capacity of the arena, allocations are aligned to 8 bytes
+     */
+    public BytesArena(@NonNegative long capacity) {
+        this(capacity, 8);
+    }
+
+    /**
+     * @param capacity  of the arena
+     * @param alignment of the address of each allocation, a power of two
+     */
+    public BytesArena(@NonNegative long capacity, @NonNegative int alignment) {
+        if (Integer.bitCount(alignment) != 1)
+            throw new IllegalArgumentException("alignment " + alignment + " must be a power of two");
+        this.alignment = alignment;
+        // the store itself is aligned, so the address of each allocation is too
+        this.store = NativeBytesStore.alignedStoreWithFixedCapacity(capacity, alignment);
+    }
+
+    /**
+     * Allocate a Bytes with a fixed capacity which is valid until the next {@link #reset()}
+     *
+     * @param capacity of the Bytes
+     * @return a clear Bytes
+     * @throws BufferOverflowException if the arena doesn't have the capacity remaining
+     */
+    @NotNull
+    public Bytes<Void> allocate(@NonNegative long capacity)
+            throws BufferOverflowException, IllegalStateException {
+        throwExceptionIfClosed();
+        final long offset = (used + alignment - 1) & -alignment;
+        if (capacity < 0 || capacity > store.capacity() - offset)
+            throw new DecoratedBufferOverflowException("Unable to allocate " + capacity + " bytes, remaining: " + (store.capacity() - offset));
+        used = offset + capacity;
+
+        if (viewsUsed == views.size())
+            addView();
+        pointers.get(viewsUsed).set(store.addressForWrite(offset), capacity);
+        final VanillaBytes<Void> bytes = views.get(viewsUsed++);
+        bytes.clear();
+        return bytes;
+    }
+
+    private void addView() {
+        final PointerBytesStore pointer = new PointerBytesStore();
+        pointers.add(pointer);
+        views.add(new VanillaBytes<>(pointer, 0, 0));
+        pointer.release(INIT);
+    }
+
+    /**
+     * Free everything allocated. The Bytes allocated before must no longer be used.
+     */
+    public void reset()
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+        for (int i = 0; i < viewsUsed; i++)
+            views.get(i).singleThreadedCheckReset();
+        used = 0;
+        viewsUsed = 0;
+    }
+
+    /**
+     * @return the bytes allocated since the last reset, including padding for alignment
+     */
+    public long used() {
+        return used;
+    }
+
+    public long capacity() {
+        return store.capacity();
+    }
+
+    public long remaining() {
+        return store.capacity() - used;
+    }
+
+    @Override
+    public void singleThreadedCheckReset() {
+        super.singleThreadedCheckReset();
+        for (VanillaBytes<Void> view : views)
+            view.singleThreadedCheckReset();
+    }
+
+    @Override
+    protected void performClose() {
+        for (VanillaBytes<Void> view : views)
+            view.releaseLast();
+        views.clear();
+        pointers.clear();
+        store.releaseLast();
+    }
+}
@@ -17,18 +17,38 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.core.util.ObjectUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.nio.channels.GatheringByteChannel;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public interface BytesIn<U> extends
         RandomDataInput,
         StreamingDataInput<Bytes<U>>,
         ByteStringParser<Bytes<U>> {
+
+    /**
+     * Write the readable bytes of several Bytes with a single gathering write e.g. a header and a payload, advancing
+     * the readPosition of each by the bytes written from it.
+     * <p>
+     * Like any write to a non-blocking channel, this may not write everything, in which case the caller should
+     * call it again with the same Bytes.
+     *
+     * @param channel to write to
+     * @param bytes   to write from in order
+     * @return the number of bytes written
+     * @throws IOException if the channel fails
+     */
+    static long gatheringWrite(@NotNull GatheringByteChannel channel, @NotNull Bytes<?>... bytes)
+            throws IOException, IllegalStateException {
+        return BytesInternal.gatheringWrite(channel, bytes);
+    }
     /**
      * Reads messages from this tails as methods.  It returns a BooleanSupplier which returns
      *
@@ -17,10 +17,12 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.BytesFieldInfo;
 import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.core.ClassLocal;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.Memory;
 import net.openhft.chronicle.core.io.IORuntimeException;
 import net.openhft.chronicle.core.util.ObjectUtils;
 import org.jetbrains.annotations.NotNull;
@@ -32,20 +34,158 @@ import java.nio.BufferUnderflowException;
 import java.util.*;
 import java.util.function.Supplier;
 
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static net.openhft.chronicle.core.UnsafeMemory.UNSAFE;
+
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class BytesMarshaller<T> {
     public static final ClassLocal<BytesMarshaller> BYTES_MARSHALLER_CL
             = ClassLocal.withInitial(BytesMarshaller::new);
+    // the kind of value after a field's tag, in the lowest KIND_BITS, so a reader can skip fields it doesn't have
+    static final int KIND_BITS = 3;
+    static final int BYTE_KIND = 0;
+    static final int SHORT_KIND = 1;
+    static final int INT_KIND = 2;
+    static final int FLOAT_KIND = 3;
+    static final int LONG_KIND = 4;
+    static final int DOUBLE_KIND = 5;
+    static final int STOP_BIT_KIND = 6;
+    static final int LENGTH_KIND = 7;
+
     private final FieldAccess[] fields;
+    // for a class with @FieldId fields, the tag of each field in id order, and a hash of the schema, otherwise null
+    private final int[] tags;
+    private final int schemaId;
 
     public BytesMarshaller(@NotNull Class<T> tClass) {
         final Map<String, Field> map = new LinkedHashMap<>();
         getAllField(tClass, map);
-        fields = map.values().stream()
+        if (map.values().stream().anyMatch(f -> f.isAnnotationPresent(FieldId.class))) {
+            fields = versionedFields(tClass, map.values());
+            tags = new int[fields.length];
+            int hash = 0;
+            for (int i = 0; i < fields.length; i++) {
+                final Field field = fields[i].field;
+                tags[i] = (field.getAnnotation(FieldId.class).value() << KIND_BITS) | kindOf(field.getType());
+                hash = hash * 1_000_003 + tags[i] * 31 + field.getType().getName().hashCode();
+            }
+            schemaId = hash;
+            return;
+        }
+        tags = null;
+        schemaId = 0;
+        final Map<String, FieldAccess> groups = fieldGroups(tClass, map.values());
+        final Set<String> groupsAdded = new HashSet<>();
+        final List<FieldAccess> list = new ArrayList<>();
+        for (Field field : map.values()) {
+            final FieldGroup fieldGroup = field.getAnnotation(FieldGroup.class);
+            final FieldAccess group = fieldGroup == null ? null : groups.get(fieldGroup.value());
+            if (group == null)
+                list.add((FieldAccess) FieldAccess.create(field));
+            else if (groupsAdded.add(fieldGroup.value()))
+                list.add(group);
+        }
+        fields = list.toArray(new FieldAccess[0]);
+    }
+
+    private static FieldAccess[] versionedFields(@NotNull Class<?> tClass, @NotNull Collection<Field> marshalled) {
+        final Set<Integer> ids = new HashSet<>();
+        final List<Field> sorted = new ArrayList<>(marshalled);
+        for (Field field : sorted) {
+            final FieldId fieldId = field.getAnnotation(FieldId.class);
+            if (fieldId == null)
+                throw new IllegalArgumentException("The field " + field.getName() + " of " + tClass.getName() + " needs a @FieldId as other fields have one");
+            if (fieldId.value() < 0 || fieldId.value() >= 1 << (31 - KIND_BITS))
+                throw new IllegalArgumentException("The @FieldId of " + field.getName() + " of " + tClass.getName() + " is out of range");
+            if (!ids.add(fieldId.value()))
+                throw new IllegalArgumentException("The @FieldId " + fieldId.value() + " of " + tClass.getName() + " is used more than once");
+        }
+        sorted.sort(Comparator.comparingInt(f -> f.getAnnotation(FieldId.class).value()));
+        return sorted.stream()
                 .map(FieldAccess::create)
                 .toArray(FieldAccess[]::new);
     }
 
+    static int kindOf(@NotNull Class<?> type) {
+        switch (type.getName()) {
+            case "boolean":
+            case "byte":
+                return BYTE_KIND;
+            case "short":
+                return SHORT_KIND;
+            case "int":
+                return INT_KIND;
+            case "float":
+                return FLOAT_KIND;
+            case "long":
+                return LONG_KIND;
+            case "double":
+                return DOUBLE_KIND;
+            case "char":
+                return STOP_BIT_KIND;
+            default:
+                return LENGTH_KIND;
+        }
+    }
+
+    /**
+     * Find the {@link FieldGroup}s which can be copied as one block of memory, giving the same bytes as writing each
+     * field. This is the case when the group's fields are long, int, short, byte, float or double fields which are
+     * declared one after another, and laid out without gaps in the same order, with nothing else in the group's range.
+     */
+    static Map<String, FieldAccess> fieldGroups(@NotNull Class<?> tClass, @NotNull Collection<Field> marshalled) {
+        final Map<String, FieldAccess> groups = new HashMap<>();
+        if (Jvm.isAzulZing() || marshalled.stream().noneMatch(f -> f.isAnnotationPresent(FieldGroup.class)))
+            return groups;
+        final List<Field> declared = new ArrayList<>(marshalled);
+        final BytesFieldInfo info = BytesFieldInfo.lookup(tClass);
+        final List<Field> allFields = BytesFieldInfo.fields(tClass);
+        for (String name : info.groups()) {
+            final long start = info.startOf(name);
+            final long length = info.lengthOf(name);
+            final List<Field> inMemoryOrder = new ArrayList<>();
+            long end = start;
+            for (Field field : allFields) {
+                final long offset = MEMORY.objectFieldOffset(field);
+                if (offset < start || offset >= start + length)
+                    continue;
+                final FieldGroup fieldGroup = field.getAnnotation(FieldGroup.class);
+                if (!isCopiedAsIs(field.getType()) || !marshalled.contains(field) || offset != end
+                        || fieldGroup == null || !fieldGroup.value().equals(name)) {
+                    inMemoryOrder.clear();
+                    break;
+                }
+                inMemoryOrder.add(field);
+                end = offset + Memory.sizeOf(field.getType());
+            }
+            // a single field is written the same either way
+            if (inMemoryOrder.size() < 2 || end != start + length
+                    || !inDeclaredOrder(declared, inMemoryOrder)
+                    || !BytesUtil.isTriviallyCopyable(tClass, (int) start, (int) length))
+                continue;
+            groups.put(name, new FieldGroupAccess(inMemoryOrder.get(0), name, (int) start, (int) length));
+        }
+        return groups;
+    }
+
+    // fields which are written as their raw bytes, unlike boolean and char
+    private static boolean isCopiedAsIs(Class<?> type) {
+        return type == long.class || type == int.class || type == short.class || type == byte.class
+                || type == float.class || type == double.class;
+    }
+
+    // whether these fields are declared one after another in the same order
+    private static boolean inDeclaredOrder(List<Field> declared, List<Field> fields) {
+        final int first = declared.indexOf(fields.get(0));
+        if (first < 0 || first + fields.size() > declared.size())
+            return false;
+        for (int i = 1; i < fields.size(); i++) {
+            if (!declared.get(first + i).equals(fields.get(i)))
+                return false;
+        }
+        return true;
+    }
+
     public static void getAllField(@NotNull Class clazz, @NotNull Map<String, Field> map) {
         if (clazz != Object.class)
             getAllField(clazz.getSuperclass(), map);
@@ -58,6 +198,10 @@ public class BytesMarshaller<T> {
     }
 
     public void readMarshallable(ReadBytesMarshallable t, BytesIn<?> in) {
+        if (tags != null) {
+            readVersioned(t, in);
+            return;
+        }
         for (@NotNull FieldAccess field : fields) {
             field.read(t, in);
         }
@@ -66,17 +210,157 @@ public class BytesMarshaller<T> {
     public void writeMarshallable(WriteBytesMarshallable t, BytesOut<?> out)
             throws IllegalArgumentException, IllegalStateException, BufferOverflowException, BufferUnderflowException, ArithmeticException {
         out.adjustHexDumpIndentation(+1);
-        for (@NotNull FieldAccess field : fields) {
-            field.write(t, out);
+        if (tags != null) {
+            writeVersioned(t, out);
+        } else {
+            for (@NotNull FieldAccess field : fields) {
+                field.write(t, out);
+            }
         }
         out.adjustHexDumpIndentation(-1);
     }
 
+    private void writeVersioned(WriteBytesMarshallable t, BytesOut<?> out)
+            throws IllegalArgumentException, IllegalStateException, BufferOverflowException, BufferUnderflowException, ArithmeticException {
+        out.writeStopBit(fields.length);
+        out.writeInt(schemaId);
+        for (int i = 0; i < fields.length; i++) {
+            final FieldAccess field = fields[i];
+            out.writeHexDumpDescription(field.field.getName());
+            out.writeStopBit(tags[i]);
+            if ((tags[i] & LENGTH_KIND) != LENGTH_KIND) {
+                field.getValue(t, out);
+                continue;
+            }
+            writeWithLength(t, out, field);
+        }
+    }
+
+    private static void writeWithLength(Object t, BytesOut<?> out, FieldAccess field)
+            throws IllegalArgumentException, IllegalStateException, BufferOverflowException, BufferUnderflowException, ArithmeticException {
+        if (out instanceof Bytes) {
+            // the length is filled in afterwards
+            final Bytes<?> bytes = (Bytes<?>) out;
+            final long position = bytes.writePosition();
+            bytes.rawWriteInt(0);
+            field.getValue(t, bytes);
+            bytes.writeInt(position, Maths.toInt32(bytes.lengthWritten(position) - Integer.BYTES));
+            return;
+        }
+        final Bytes<?> buffer = Bytes.allocateElasticOnHeap();
+        try {
+            field.getValue(t, buffer);
+            out.rawWriteInt(Maths.toInt32(buffer.readRemaining()));
+            out.write(buffer);
+        } finally {
+            buffer.releaseLast();
+        }
+    }
+
+    private void readVersioned(ReadBytesMarshallable t, BytesIn<?> in)
+            throws IORuntimeException {
+        final int count = Maths.toInt32(in.readStopBit());
+        final int schema = in.readInt();
+        if (count == fields.length && schema == schemaId) {
+            // the same schema, so read the fields in order
+            for (int i = 0; i < fields.length; i++) {
+                in.readStopBit();
+                if ((tags[i] & LENGTH_KIND) == LENGTH_KIND)
+                    in.rawReadInt();
+                fields[i].read(t, in);
+            }
+            return;
+        }
+        final boolean[] found = new boolean[fields.length];
+        for (int j = 0; j < count; j++) {
+            final int tag = Maths.toInt32(in.readStopBit());
+            final int i = Arrays.binarySearch(tags, tag);
+            if (i < 0) {
+                skipField(in, tag & LENGTH_KIND);
+                continue;
+            }
+            found[i] = true;
+            if ((tag & LENGTH_KIND) == LENGTH_KIND) {
+                readWithLength(t, in, fields[i], in.rawReadInt());
+            } else {
+                fields[i].read(t, in);
+            }
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (!found[i])
+                fields[i].reset(t);
+        }
+    }
+
+    /**
+     * Read a field bounded by the length written, so a field which changed type with the same id can't read into the
+     * fields after it. If the field can't be read, or isn't read as written, it is reset.
+     */
+    private static void readWithLength(Object t, BytesIn<?> in, FieldAccess field, int length)
+            throws IORuntimeException {
+        if (length < 0 || length > in.readRemaining())
+            throw new IORuntimeException("The field " + field.field.getName() + " has a length of " + length + " but only " + in.readRemaining() + " bytes remain");
+        final long limit = in.readLimit();
+        final long end = in.readPosition() + length;
+        try {
+            in.readLimit(end);
+            field.read(t, in);
+            if (in.readRemaining() != 0)
+                field.reset(t);
+        } catch (IORuntimeException | BufferUnderflowException e) {
+            field.reset(t);
+        } finally {
+            in.readPosition(end);
+            in.readLimit(limit);
+        }
+    }
+
+    private static void skipField(BytesIn<?> in, int kind) {
+        switch (kind) {
+            case BYTE_KIND:
+                in.readByte();
+                break;
+            case SHORT_KIND:
+                in.readShort();
+                break;
+            case INT_KIND:
+                in.readInt();
+                break;
+            case FLOAT_KIND:
+                in.readFloat();
+                break;
+            case LONG_KIND:
+                in.readLong();
+                break;
+            case DOUBLE_KIND:
+                in.readDouble();
+                break;
+            case STOP_BIT_KIND:
+                in.readStopBit();
+                break;
+            default:
+                in.readSkip(in.rawReadInt());
+                break;
+        }
+    }
+
     abstract static class FieldAccess {
         final Field field;
+        // primitive fields are accessed at this offset without reflection or boxing
+        final long offset;
 
         FieldAccess(@NotNull Field field) {
             this.field = field;
+            this.offset = MEMORY.objectFieldOffset(field);
+        }
+
+        // reference fields are also accessed at the offset, rather than with Field.get and Field.set
+        final Object getObject(Object o) {
+            return UNSAFE.getObject(o, offset);
+        }
+
+        final void setObject(Object o, Object value) {
+            UNSAFE.putObject(o, offset, value);
         }
 
         @NotNull
@@ -130,6 +414,8 @@ public class BytesMarshaller<T> {
                 return new BytesFieldAccess(field);
             if (BytesMarshallable.class.isAssignableFrom(type))
                 return new BytesMarshallableFieldAccess(field);
+            if (type == String.class)
+                return new StringFieldAccess(field);
             return new ScalarFieldAccess(field);
         }
 
@@ -171,6 +457,24 @@ public class BytesMarshaller<T> {
 
         protected abstract void setValue(Object o, BytesIn<?> read)
                 throws BufferUnderflowException, IllegalArgumentException, ArithmeticException, IllegalStateException, BufferOverflowException;
+
+        /**
+         * Set the field to zero or null, when it was not in the data read
+         */
+        void reset(Object o) {
+            final Class<?> type = field.getType();
+            if (type == long.class || type == double.class) {
+                MEMORY.writeLong(o, offset, 0L);
+            } else if (type == int.class || type == float.class) {
+                MEMORY.writeInt(o, offset, 0);
+            } else if (type == short.class || type == char.class) {
+                MEMORY.writeShort(o, offset, (short) 0);
+            } else if (type == byte.class || type == boolean.class) {
+                MEMORY.writeByte(o, offset, (byte) 0);
+            } else {
+                setObject(o, null);
+            }
+        }
     }
 
     static class ScalarFieldAccess extends FieldAccess {
@@ -182,10 +486,10 @@ public class BytesMarshaller<T> {
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws BufferOverflowException, IllegalStateException {
             try {
-                Object o2 = field.get(o);
+                Object o2 = getObject(o);
                 @Nullable String s = o2 == null ? null : o2.toString();
                 write.writeUtf8(s);
-            } catch (IllegalArgumentException | IllegalAccessException | BufferUnderflowException e) {
+            } catch (IllegalArgumentException | BufferUnderflowException e) {
                 throw new AssertionError(e);
             }
         }
@@ -193,13 +497,73 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IORuntimeException, BufferUnderflowException, IllegalStateException, ArithmeticException, IllegalArgumentException {
+            @Nullable String s = read.readUtf8();
+            setObject(o, ObjectUtils.convertTo(field.getType(), s));
+        }
+    }
+
+    static class FieldGroupAccess extends FieldAccess {
+        private final String name;
+        private final int start;
+        private final int length;
+
+        public FieldGroupAccess(Field first, String name, int start, int length) {
+            super(first);
+            this.name = name;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        void write(Object o, @NotNull BytesOut<?> write)
+                throws IllegalStateException, BufferOverflowException {
+            write.writeHexDumpDescription(name);
+            getValue(o, write);
+        }
+
+        @Override
+        protected void getValue(Object o, @NotNull BytesOut<?> write)
+                throws IllegalStateException, BufferOverflowException {
+            write.unsafeWriteObject(o, start, length);
+        }
+
+        @Override
+        protected void setValue(Object o, @NotNull BytesIn<?> read)
+                throws IllegalStateException, BufferUnderflowException {
+            read.unsafeReadObject(o, start, length);
+        }
+
+        @NotNull
+        @Override
+        public String toString() {
+            return "FieldGroupAccess{" +
+                    "name=" + name +
+                    ", start=" + start +
+                    ", length=" + length +
+                    '}';
+        }
+    }
+
+    static class StringFieldAccess extends FieldAccess {
+        public StringFieldAccess(Field field) {
+            super(field);
+        }
+
+        @Override
+        protected void getValue(Object o, @NotNull BytesOut<?> write)
+                throws BufferOverflowException, IllegalStateException {
             try {
-                @Nullable String s = read.readUtf8();
-                field.set(o, ObjectUtils.convertTo(field.getType(), s));
-            } catch (IllegalAccessException e) {
+                write.writeUtf8((String) getObject(o));
+            } catch (IllegalArgumentException e) {
                 throw new AssertionError(e);
             }
         }
+
+        @Override
+        protected void setValue(Object o, @NotNull BytesIn<?> read)
+                throws IORuntimeException, BufferUnderflowException, IllegalStateException, ArithmeticException, IllegalArgumentException {
+            setObject(o, read.readUtf8());
+        }
     }
 
     static class BytesMarshallableFieldAccess extends FieldAccess {
@@ -211,10 +575,10 @@ public class BytesMarshaller<T> {
         protected void getValue(Object o, BytesOut<?> write)
                 throws BufferUnderflowException, IllegalStateException, BufferOverflowException {
             try {
-                @NotNull BytesMarshallable o2 = (BytesMarshallable) field.get(o);
+                @NotNull BytesMarshallable o2 = (BytesMarshallable) getObject(o);
                 assert o2 != null;
                 o2.writeMarshallable(write);
-            } catch (IllegalArgumentException | IllegalAccessException | ArithmeticException e) {
+            } catch (IllegalArgumentException | ArithmeticException e) {
                 throw new AssertionError(e);
             }
         }
@@ -223,14 +587,14 @@ public class BytesMarshaller<T> {
         protected void setValue(Object o, BytesIn<?> read)
                 throws IORuntimeException, BufferUnderflowException, IllegalStateException {
             try {
-                @NotNull BytesMarshallable o2 = (BytesMarshallable) field.get(o);
+                @NotNull BytesMarshallable o2 = (BytesMarshallable) getObject(o);
                 if (!field.getType().isInstance(o2)) {
                     o2 = (BytesMarshallable) ObjectUtils.newInstance((Class) field.getType());
-                    field.set(o, o2);
+                    setObject(o, o2);
                 }
 
                 o2.readMarshallable(read);
-            } catch (IllegalArgumentException | IllegalAccessException e) {
+            } catch (IllegalArgumentException e) {
                 throw new AssertionError(e);
             }
         }
@@ -244,12 +608,7 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException {
-            @NotNull BytesStore bytes;
-            try {
-                bytes = (BytesStore) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            @Nullable BytesStore bytes = (BytesStore) getObject(o);
             if (bytes == null) {
                 BytesInternal.writeStopBitNeg1(write);
                 return;
@@ -267,29 +626,25 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IORuntimeException, IllegalArgumentException, IllegalStateException, ArithmeticException, BufferUnderflowException, BufferOverflowException {
-            try {
-                @NotNull Bytes<?> bytes = (Bytes) field.get(o);
-                long stopBit = read.readStopBit();
-                if (stopBit == -1) {
-                    if (bytes != null)
-                        bytes.releaseLast();
-                    field.set(o, null);
-                    return;
-                }
-                int length = Maths.toUInt31(stopBit);
-                @NotNull Bytes<?> bs;
-                if (bytes == null) {
-                    bs = Bytes.allocateElasticOnHeap(length);
-                    field.set(o, bs);
-                } else {
-                    bs = bytes;
-                }
-                bs.clear();
-                read.read(bs, length);
-                bs.readLimit(length);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+            @NotNull Bytes<?> bytes = (Bytes) getObject(o);
+            long stopBit = read.readStopBit();
+            if (stopBit == -1) {
+                if (bytes != null)
+                    bytes.releaseLast();
+                setObject(o, null);
+                return;
+            }
+            int length = Maths.toUInt31(stopBit);
+            @NotNull Bytes<?> bs;
+            if (bytes == null) {
+                bs = Bytes.allocateElasticOnHeap(length);
+                setObject(o, bs);
+            } else {
+                bs = bytes;
             }
+            bs.clear();
+            read.read(bs, length);
+            bs.readLimit(length);
         }
     }
 
@@ -304,48 +659,113 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException, BufferUnderflowException, ArithmeticException {
-            try {
-                Object[] c = (Object[]) field.get(o);
-                if (c == null) {
-                    BytesInternal.writeStopBitNeg1(write);
-                    return;
-                }
-                int size = c.length;
-                write.writeStopBit(size);
-                if (size == 0)
-                    return;
-                for (int i = 0; i < size; i++)
-                    write.writeObject(componentType, c[i]);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+            Object[] c = (Object[]) getObject(o);
+            if (c == null) {
+                BytesInternal.writeStopBitNeg1(write);
+                return;
             }
+            int size = c.length;
+            write.writeStopBit(size);
+            if (size == 0)
+                return;
+            for (int i = 0; i < size; i++)
+                write.writeObject(componentType, c[i]);
         }
 
         @Override
         protected void setValue(Object o, BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException, ArithmeticException, BufferOverflowException {
-            try {
-                Object[] c = (Object[]) field.get(o);
-                int length = Maths.toInt32(read.readStopBit());
-                if (length < 0) {
-                    if (c != null)
-                        field.set(o, null);
-                    return;
+            Object[] c = (Object[]) getObject(o);
+            int length = Maths.toInt32(read.readStopBit());
+            if (length < 0) {
+                if (c != null)
+                    setObject(o, null);
+                return;
+            }
+            if (c == null) {
+                c = (Object[]) Array.newInstance(field.getType().getComponentType(), length);
+                setObject(o, c);
+            } else if (c.length != length)
+                setObject(o, c = Arrays.copyOf(c, length));
+            for (int i = 0; i < length; i++) {
+                Object o2 = c[i];
+                if (o2 instanceof BytesMarshallable)
+                    ((BytesMarshallable) o2).readMarshallable(read);
+                else
+                    c[i] = read.readObject(componentType);
+            }
+        }
+    }
+
+    /**
+     * Writes and reads one element of a collection or map, without going through writeObject/readObject for the
+     * common types, and reusing the previous element where it can.
+     */
+    static final class ElementAccess {
+        private final Class type;
+        private final Class implementation;
+        private final String typeName;
+
+        ElementAccess(@NotNull Class type) {
+            this.type = type;
+            this.implementation = ObjectUtils.implementationToUse(type);
+            this.typeName = type.getName();
+        }
+
+        void write(BytesOut<?> write, Object o)
+                throws IllegalArgumentException, BufferOverflowException, ArithmeticException, IllegalStateException, BufferUnderflowException {
+            switch (typeName) {
+                case "java.lang.Long":
+                    if (o instanceof Long) {
+                        write.writeLong((Long) o);
+                        return;
+                    }
+                    break;
+                case "java.lang.Integer":
+                    if (o instanceof Integer) {
+                        write.writeInt((Integer) o);
+                        return;
+                    }
+                    break;
+                case "java.lang.Double":
+                    if (o instanceof Double) {
+                        write.writeDouble((Double) o);
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            write.writeObject(type, o);
+        }
+
+        /**
+         * @param previous the element this replaces, if any
+         * @return the previous element if it was read into or is equal to the value read, otherwise a new element
+         */
+        Object read(BytesIn<?> read, @Nullable Object previous)
+                throws BufferUnderflowException, IllegalArgumentException, IllegalStateException, ArithmeticException, BufferOverflowException {
+            switch (typeName) {
+                case "java.lang.Long": {
+                    final long value = read.readLong();
+                    return previous instanceof Long && (Long) previous == value ? previous : (Long) value;
                 }
-                if (c == null) {
-                    c = (Object[]) Array.newInstance(field.getType().getComponentType(), length);
-                    field.set(o, c);
-                } else if (c.length != length)
-                    field.set(o, c = Arrays.copyOf(c, length));
-                for (int i = 0; i < length; i++) {
-                    Object o2 = c[i];
-                    if (o2 instanceof BytesMarshallable)
-                        ((BytesMarshallable) o2).readMarshallable(read);
-                    else
-                        c[i] = read.readObject(componentType);
+                case "java.lang.Integer": {
+                    final int value = read.readInt();
+                    return previous instanceof Integer && (Integer) previous == value ? previous : (Integer) value;
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                case "java.lang.Double": {
+                    final double value = read.readDouble();
+                    return previous instanceof Double && Double.doubleToRawLongBits((Double) previous) == Double.doubleToRawLongBits(value)
+                            ? previous : (Double) value;
+                }
+                default:
+                    // only reuse an element of the class readObject would create
+                    if (previous instanceof BytesMarshallable && previous.getClass() == implementation) {
+                        ((BytesMarshallable) previous).readMarshallable(read);
+                        return previous;
+                    }
+                    return read.readObject(type);
             }
         }
     }
@@ -353,7 +773,7 @@ public class BytesMarshaller<T> {
     static class CollectionFieldAccess extends FieldAccess {
         final Supplier<Collection> collectionSupplier;
         @NotNull
-        private final Class componentType;
+        private final ElementAccess elementAccess;
         private final Class<?> type;
 
         public CollectionFieldAccess(@NotNull Field field) {
@@ -368,6 +788,7 @@ public class BytesMarshaller<T> {
             else
                 collectionSupplier = () -> ObjectUtils.newInstance((Class<? extends Collection>) type);
             Type genericType = field.getGenericType();
+            Class componentType;
             if (genericType instanceof ParameterizedType) {
                 @NotNull ParameterizedType pType = (ParameterizedType) genericType;
                 Type type0 = pType.getActualTypeArguments()[0];
@@ -375,56 +796,68 @@ public class BytesMarshaller<T> {
             } else {
                 componentType = Object.class;
             }
+            elementAccess = new ElementAccess(componentType);
         }
 
         @Override
         protected void getValue(Object o, BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException, BufferUnderflowException, ArithmeticException {
-            try {
-                Collection c = (Collection) field.get(o);
-                if (c == null) {
-                    BytesInternal.writeStopBitNeg1(write);
-                    return;
-                }
-                write.writeStopBit(c.size());
-                if (c.isEmpty())
-                    return;
-                if (c instanceof RandomAccess && c instanceof List) {
-                    List l = (List) c;
-                    for (int i = 0, size = l.size(); i < size; i++)
-                        write.writeObject(componentType, l.get(i));
-                } else {
-                    for (Object o2 : c) {
-                        write.writeObject(componentType, o2);
-                    }
+            Collection c = (Collection) getObject(o);
+            if (c == null) {
+                BytesInternal.writeStopBitNeg1(write);
+                return;
+            }
+            write.writeStopBit(c.size());
+            if (c.isEmpty())
+                return;
+            if (c instanceof RandomAccess && c instanceof List) {
+                List l = (List) c;
+                for (int i = 0, size = l.size(); i < size; i++)
+                    elementAccess.write(write, l.get(i));
+            } else {
+                for (Object o2 : c) {
+                    elementAccess.write(write, o2);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
             }
         }
 
         @Override
         protected void setValue(Object o, BytesIn<?> read)
                 throws IllegalStateException, ArithmeticException, IllegalArgumentException, BufferUnderflowException, BufferOverflowException {
-            try {
-                Collection c = (Collection) field.get(o);
-                int length = Maths.toInt32(read.readStopBit());
-                if (length < 0) {
-                    if (c != null)
-                        field.set(o, null);
-                    return;
+            Collection c = (Collection) getObject(o);
+            int length = Maths.toInt32(read.readStopBit());
+            if (length < 0) {
+                if (c != null)
+                    setObject(o, null);
+                return;
+            }
+
+            if (c instanceof RandomAccess && c instanceof List) {
+                // overwrite the elements in place, keeping those which are unchanged or can be read into
+                List l = (List) c;
+                final int size = l.size();
+                for (int i = 0; i < length; i++) {
+                    if (i < size) {
+                        final Object previous = l.get(i);
+                        final Object element = elementAccess.read(read, previous);
+                        if (element != previous)
+                            l.set(i, element);
+                    } else {
+                        l.add(elementAccess.read(read, null));
+                    }
                 }
+                if (size > length)
+                    l.subList(length, size).clear();
+                return;
+            }
 
-                if (c == null)
-                    field.set(o, c = collectionSupplier.get());
-                else
-                    c.clear();
+            if (c == null)
+                setObject(o, c = collectionSupplier.get());
+            else
+                c.clear();
 
-                for (int i = 0; i < length; i++)
-                    c.add(read.readObject(componentType));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            for (int i = 0; i < length; i++)
+                c.add(elementAccess.read(read, null));
         }
     }
 
@@ -432,9 +865,9 @@ public class BytesMarshaller<T> {
         final Supplier<Map> collectionSupplier;
         private final Class<?> type;
         @NotNull
-        private final Class keyType;
+        private final ElementAccess keyAccess;
         @NotNull
-        private final Class valueType;
+        private final ElementAccess valueAccess;
 
         public MapFieldAccess(@NotNull Field field) {
             super(field);
@@ -449,56 +882,62 @@ public class BytesMarshaller<T> {
             if (genericType instanceof ParameterizedType) {
                 @NotNull ParameterizedType pType = (ParameterizedType) genericType;
                 Type[] actualTypeArguments = pType.getActualTypeArguments();
-                keyType = extractClass(actualTypeArguments[0]);
-                valueType = extractClass(actualTypeArguments[1]);
+                keyAccess = new ElementAccess(extractClass(actualTypeArguments[0]));
+                valueAccess = new ElementAccess(extractClass(actualTypeArguments[1]));
 
             } else {
-                keyType = Object.class;
-                valueType = Object.class;
+                keyAccess = new ElementAccess(Object.class);
+                valueAccess = new ElementAccess(Object.class);
             }
         }
 
         @Override
         protected void getValue(Object o, BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException, BufferUnderflowException, ArithmeticException {
-            Map<?, ?> m = null;
-            try {
-                m = (Map) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            Map<?, ?> m = (Map) getObject(o);
             if (m == null) {
                 BytesInternal.writeStopBitNeg1(write);
                 return;
             }
             write.writeStopBit(m.size());
             for (Map.Entry<?, ?> entry : m.entrySet()) {
-                write.writeObject(keyType, entry.getKey());
-                write.writeObject(valueType, entry.getValue());
+                keyAccess.write(write, entry.getKey());
+                valueAccess.write(write, entry.getValue());
             }
         }
 
         @Override
         protected void setValue(Object o, BytesIn<?> read)
                 throws IllegalStateException, IllegalArgumentException, BufferUnderflowException, BufferOverflowException, ArithmeticException {
-            try {
-                Map m = (Map) field.get(o);
-                long length = read.readStopBit();
-                if (length < 0) {
-                    if (m != null)
-                        field.set(o, null);
-                    return;
-                }
-                if (m == null) {
-                    field.set(o, m = collectionSupplier.get());
-                } else {
-                    m.clear();
-                }
+            Map m = (Map) getObject(o);
+            long length = read.readStopBit();
+            if (length < 0) {
+                if (m != null)
+                    setObject(o, null);
+                return;
+            }
+            if (m == null) {
+                setObject(o, m = collectionSupplier.get());
+            } else if (m.size() == length) {
+                // most likely the same keys, so update the values in place
+                final long start = read.readPosition();
                 for (int i = 0; i < length; i++) {
-                    m.put(read.readObject(keyType), read.readObject(valueType));
+                    final Object key = keyAccess.read(read, null);
+                    final Object previous = m.get(key);
+                    final Object value = valueAccess.read(read, previous);
+                    if (value != previous || !m.containsKey(key))
+                        m.put(key, value);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                // if a key was added, another must be removed, so read it again from scratch
+                if (m.size() == length)
+                    return;
+                read.readPosition(start);
+                m.clear();
+            } else {
+                m.clear();
+            }
+            for (int i = 0; i < length; i++) {
+                m.put(keyAccess.read(read, null), valueAccess.read(read, null));
             }
         }
     }
@@ -511,21 +950,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalArgumentException, BufferOverflowException, IllegalStateException {
-            try {
-                write.writeBoolean(field.getBoolean(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeBoolean(MEMORY.readByte(o, offset) != 0);
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalArgumentException {
-            try {
-                field.setBoolean(o, read.readBoolean());
-            } catch (IllegalAccessException | IllegalStateException e) {
-                throw new AssertionError(e);
-            }
+            MEMORY.writeByte(o, offset, (byte) (read.readBoolean() ? 1 : 0));
         }
     }
 
@@ -537,21 +968,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeByte(field.getByte(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeByte(MEMORY.readByte(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, IllegalArgumentException {
-            try {
-                field.setByte(o, read.readByte());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            MEMORY.writeByte(o, offset, read.readByte());
         }
     }
 
@@ -563,36 +986,28 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                byte[] array = (byte[]) field.get(o);
-                if (array == null) {
-                    write.writeInt(~0);
-                } else {
-                    write.writeInt(array.length);
-                    write.write(array);
-                }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+            byte[] array = (byte[]) getObject(o);
+            if (array == null) {
+                write.writeInt(~0);
+            } else {
+                write.writeInt(array.length);
+                write.write(array);
             }
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    byte[] array = (byte[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new byte[len];
-                        field.set(o, array);
-                    }
-                    read.read(array);
+            int len = read.readInt();
+            if (len == ~0) {
+                setObject(o, null);
+            } else if (len >= 0) {
+                byte[] array = (byte[]) getObject(o);
+                if (array == null || array.length != len) {
+                    array = new byte[len];
+                    setObject(o, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                read.read(array);
             }
         }
     }
@@ -605,25 +1020,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                char aChar = field.getChar(o);
-                if (aChar >= 65536 - 127)
-                    write.writeStopBit(aChar - 65536L);
-                else
-                    write.writeStopBit(aChar);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            char aChar = (char) MEMORY.readShort(o, offset);
+            if (aChar >= 65536 - 127)
+                write.writeStopBit(aChar - 65536L);
+            else
+                write.writeStopBit(aChar);
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, IllegalArgumentException, BufferUnderflowException {
-            try {
-                field.setChar(o, read.readStopBitChar());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            MEMORY.writeShort(o, offset, (short) read.readStopBitChar());
         }
     }
 
@@ -635,21 +1042,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalArgumentException, BufferOverflowException, IllegalStateException {
-            try {
-                write.writeShort(field.getShort(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeShort(MEMORY.readShort(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setShort(o, read.readShort());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            MEMORY.writeShort(o, offset, read.readShort());
         }
     }
 
@@ -661,21 +1060,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeInt(field.getInt(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeInt(MEMORY.readInt(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setInt(o, read.readInt());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            MEMORY.writeInt(o, offset, read.readInt());
         }
     }
 
@@ -688,11 +1079,7 @@ public class BytesMarshaller<T> {
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException {
             int[] array;
-            try {
-                array = (int[]) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            array = (int[]) getObject(o);
             if (array == null) {
                 write.writeInt(~0);
             } else {
@@ -705,21 +1092,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    int[] array = (int[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new int[len];
-                        field.set(o, array);
-                    }
-                    for (int i = 0; i < len; i++)
-                        array[i] = read.readInt();
+            int len = read.readInt();
+            if (len == ~0) {
+                setObject(o, null);
+            } else if (len >= 0) {
+                int[] array = (int[]) getObject(o);
+                if (array == null || array.length != len) {
+                    array = new int[len];
+                    setObject(o, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                for (int i = 0; i < len; i++)
+                    array[i] = read.readInt();
             }
         }
     }
@@ -732,21 +1115,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeFloat(field.getFloat(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeFloat(MEMORY.readFloat(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setFloat(o, read.readFloat());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            MEMORY.writeFloat(o, offset, read.readFloat());
         }
     }
 
@@ -759,11 +1134,7 @@ public class BytesMarshaller<T> {
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
             float[] array;
-            try {
-                array = (float[]) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            array = (float[]) getObject(o);
             if (array == null) {
                 write.writeInt(~0);
             } else {
@@ -776,21 +1147,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    float[] array = (float[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new float[len];
-                        field.set(o, array);
-                    }
-                    for (int i = 0; i < len; i++)
-                        array[i] = read.readFloat();
+            int len = read.readInt();
+            if (len == ~0) {
+                setObject(o, null);
+            } else if (len >= 0) {
+                float[] array = (float[]) getObject(o);
+                if (array == null || array.length != len) {
+                    array = new float[len];
+                    setObject(o, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                for (int i = 0; i < len; i++)
+                    array[i] = read.readFloat();
             }
         }
     }
@@ -803,21 +1170,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeLong(field.getLong(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeLong(MEMORY.readLong(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setLong(o, read.readLong());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            MEMORY.writeLong(o, offset, read.readLong());
         }
     }
 
@@ -830,11 +1189,7 @@ public class BytesMarshaller<T> {
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, BufferOverflowException, IllegalArgumentException {
             long[] array;
-            try {
-                array = (long[]) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            array = (long[]) getObject(o);
             if (array == null) {
                 write.writeInt(~0);
             } else {
@@ -847,21 +1202,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    long[] array = (long[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new long[len];
-                        field.set(o, array);
-                    }
-                    for (int i = 0; i < len; i++)
-                        array[i] = read.readLong();
+            int len = read.readInt();
+            if (len == ~0) {
+                setObject(o, null);
+            } else if (len >= 0) {
+                long[] array = (long[]) getObject(o);
+                if (array == null || array.length != len) {
+                    array = new long[len];
+                    setObject(o, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                for (int i = 0; i < len; i++)
+                    array[i] = read.readLong();
             }
         }
     }
@@ -874,21 +1225,13 @@ public class BytesMarshaller<T> {
         @Override
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
-            try {
-                write.writeDouble(field.getDouble(o));
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            write.writeDouble(MEMORY.readDouble(o, offset));
         }
 
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                field.setDouble(o, read.readDouble());
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            MEMORY.writeDouble(o, offset, read.readDouble());
         }
     }
 
@@ -901,11 +1244,7 @@ public class BytesMarshaller<T> {
         protected void getValue(Object o, @NotNull BytesOut<?> write)
                 throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
             double[] array;
-            try {
-                array = (double[]) field.get(o);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
-            }
+            array = (double[]) getObject(o);
             if (array == null) {
                 write.writeInt(~0);
             } else {
@@ -918,21 +1257,17 @@ public class BytesMarshaller<T> {
         @Override
         protected void setValue(Object o, @NotNull BytesIn<?> read)
                 throws IllegalStateException, BufferUnderflowException, IllegalArgumentException {
-            try {
-                int len = read.readInt();
-                if (len == ~0) {
-                    field.set(o, null);
-                } else if (len >= 0) {
-                    double[] array = (double[]) field.get(o);
-                    if (array == null || array.length != len) {
-                        array = new double[len];
-                        field.set(o, array);
-                    }
-                    for (int i = 0; i < len; i++)
-                        array[i] = read.readDouble();
+            int len = read.readInt();
+            if (len == ~0) {
+                setObject(o, null);
+            } else if (len >= 0) {
+                double[] array = (double[]) getObject(o);
+                if (array == null || array.length != len) {
+                    array = new double[len];
+                    setObject(o, array);
                 }
-            } catch (IllegalAccessException e) {
-                throw new AssertionError(e);
+                for (int i = 0; i < len; i++)
+                    array[i] = read.readDouble();
             }
         }
     }
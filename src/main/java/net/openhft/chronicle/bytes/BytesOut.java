@@ -17,13 +17,16 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.core.io.ClosedIllegalStateException;
 import net.openhft.chronicle.core.util.ObjectUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.lang.reflect.Proxy;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.nio.channels.ScatteringByteChannel;
 
 import static net.openhft.chronicle.bytes.internal.ReferenceCountedUtil.throwExceptionIfReleased;
 
@@ -34,6 +37,23 @@ public interface BytesOut<U> extends
         BytesPrepender<Bytes<U>>,
         HexDumpBytesDescription<BytesOut<U>> {
 
+    /**
+     * Read into several Bytes with a single scattering read e.g. a fixed length header and a payload, advancing the
+     * writePosition of each by the bytes read into it. Each Bytes is filled before the next one.
+     * <p>
+     * Elastic Bytes are not resized, so use {@link Bytes#ensureCapacity(long)} first to read more than their current
+     * real capacity.
+     *
+     * @param channel to read from
+     * @param bytes   to read into in order
+     * @return the number of bytes read, or -1 at the end of the stream
+     * @throws IOException if the channel fails
+     */
+    static long scatteringRead(@NotNull ScatteringByteChannel channel, @NotNull Bytes<?>... bytes)
+            throws IOException, IllegalStateException {
+        return BytesInternal.scatteringRead(channel, bytes);
+    }
+
     /**
      * Proxy an interface so each message called is written to a file for replay.
      *
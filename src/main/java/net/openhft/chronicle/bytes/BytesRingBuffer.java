@@ -17,6 +17,9 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.ring.VanillaBytesRingBuffer;
+import net.openhft.chronicle.bytes.ring.VanillaMultiReaderBytesRingBuffer;
+import net.openhft.chronicle.bytes.ring.WaitStrategy;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.annotation.NonNegative;
 import net.openhft.chronicle.core.io.Closeable;
@@ -29,15 +32,35 @@ import java.nio.BufferOverflowException;
 @SuppressWarnings({"rawtypes", "unchecked"})
 public interface BytesRingBuffer extends BytesRingBufferStats, BytesConsumer, Closeable {
 
+    /**
+     * Creates a single reader ring buffer over the {@code bytesStore}. When the commercial implementation
+     * is not available the open-source {@link VanillaBytesRingBuffer} is used, which supports one producer
+     * and one consumer thread.
+     *
+     * @param bytesStore to lay the ring buffer over, see {@link #sizeFor(long)}
+     * @return the ring buffer
+     */
     @NotNull
     static BytesRingBuffer newInstance(@NotNull BytesStore<?, Void> bytesStore) {
+        if (!isEnterpriseAvailable())
+            return new VanillaBytesRingBuffer(bytesStore);
         return newInstance(bytesStore, 1);
     }
 
+    /**
+     * Creates a ring buffer over the {@code bytesStore} with a read position for each reader. When the commercial
+     * implementation is not available the open-source {@link VanillaMultiReaderBytesRingBuffer} is used.
+     *
+     * @param bytesStore to lay the ring buffer over, see {@link #sizeFor(long, int)}
+     * @param numReaders the number of readers which can be created
+     * @return the ring buffer
+     */
     @NotNull
     static MultiReaderBytesRingBuffer newInstance(
             @NotNull BytesStore<?, Void> bytesStore,
             @NonNegative int numReaders) {
+        if (!isEnterpriseAvailable())
+            return new VanillaMultiReaderBytesRingBuffer(bytesStore, numReaders);
         try {
             @NotNull final Class<MultiReaderBytesRingBuffer> aClass = clazz();
             final Constructor<MultiReaderBytesRingBuffer> constructor = aClass
@@ -60,11 +83,27 @@ public interface BytesRingBuffer extends BytesRingBufferStats, BytesConsumer, Cl
                 "software.chronicle.enterprise.ring.EnterpriseRingBuffer");
     }
 
+    /**
+     * @return whether the commercial ring buffer implementation is on the class path
+     */
+    static boolean isEnterpriseAvailable() {
+        try {
+            clazz();
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
     static long sizeFor(@NonNegative long capacity) {
+        if (!isEnterpriseAvailable())
+            return VanillaBytesRingBuffer.sizeFor(capacity);
         return sizeFor(capacity, 1);
     }
 
     static long sizeFor(@NonNegative long capacity, @NonNegative int numReaders) {
+        if (!isEnterpriseAvailable())
+            return VanillaMultiReaderBytesRingBuffer.sizeFor(capacity, numReaders);
         try {
             final Method sizeFor = Class.forName(
                     "software.chronicle.enterprise.queue.ChronicleRingBuffer").getMethod("sizeFor", long.class, int.class);
@@ -93,6 +132,22 @@ public interface BytesRingBuffer extends BytesRingBufferStats, BytesConsumer, Cl
      */
     boolean offer(@NotNull BytesStore bytes0);
 
+    /**
+     * Inserts the specified element at the tail of this queue, waiting for space using the {@code waitStrategy}.
+     *
+     * @param bytes0       the {@code bytes0} that you wish to add to the ring buffer
+     * @param waitStrategy to use while the queue is full, this should not be shared between threads
+     * @return returning {@code true} upon success and {@code false} if the {@code waitStrategy} gave up.
+     */
+    default boolean offer(@NotNull BytesStore bytes0, @NotNull WaitStrategy waitStrategy) {
+        waitStrategy.reset();
+        while (!offer(bytes0)) {
+            if (!waitStrategy.idle())
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Retrieves and removes the head of this queue, or returns {@code null} if this queue is
      * empty.
@@ -104,6 +159,23 @@ public interface BytesRingBuffer extends BytesRingBufferStats, BytesConsumer, Cl
     @Override
     boolean read(@NotNull BytesOut<?> using);
 
+    /**
+     * Retrieves and removes the head of this queue, waiting for an element using the {@code waitStrategy}.
+     *
+     * @param using        Bytes to read into.
+     * @param waitStrategy to use while the queue is empty, this should not be shared between threads
+     * @return false if the {@code waitStrategy} gave up, or true if the element was retrieved
+     * @throws BufferOverflowException is the {@code using} buffer is not large enough
+     */
+    default boolean read(@NotNull BytesOut<?> using, @NotNull WaitStrategy waitStrategy) {
+        waitStrategy.reset();
+        while (!read(using)) {
+            if (!waitStrategy.idle())
+                return false;
+        }
+        return true;
+    }
+
     long readRemaining();
 
     boolean isEmpty();
@@ -23,6 +23,8 @@ import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.bytes.internal.HeapBytesStore;
 import net.openhft.chronicle.bytes.internal.NativeBytesStore;
 import net.openhft.chronicle.bytes.internal.NoBytesStore;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.bytes.util.DecoratedBufferUnderflowException;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.annotation.NonNegative;
 import net.openhft.chronicle.core.io.IORuntimeException;
@@ -36,6 +38,8 @@ import java.io.OutputStream;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
@@ -179,6 +183,15 @@ public interface BytesStore<B extends BytesStore<B, U>, U>
         return NativeBytesStore.nativeStoreWithFixedCapacity(capacity);
     }
 
+    /**
+     * A fixed capacity native store which can be backed by huge pages, see {@link NativeBytesStore#hugePageStoreWithFixedCapacity(long)}
+     *
+     * @param capacity of the buffer
+     */
+    static BytesStore<?, Void> hugePageStoreWithFixedCapacity(@NonNegative long capacity) {
+        return NativeBytesStore.hugePageStoreWithFixedCapacity(capacity);
+    }
+
     static BytesStore<?, Void> lazyNativeBytesStoreWithFixedCapacity(@NonNegative long capacity) {
         return NativeBytesStore.lazyNativeBytesStoreWithFixedCapacity(capacity);
     }
@@ -383,6 +396,68 @@ public interface BytesStore<B extends BytesStore<B, U>, U>
         return copy;
     }
 
+    /**
+     * Writes a range of this BytesStore to a channel. Native memory is written from a direct ByteBuffer reused by the
+     * calling thread, and a memory mapped store is written with {@link java.nio.channels.FileChannel#transferTo} so
+     * the kernel can copy from the page cache e.g. with sendfile. Other stores are copied via a heap buffer.
+     *
+     * @param channel to write to
+     * @param offset  of the start of the range
+     * @param length  of the range
+     * @return the number of bytes written, which can be less than the length for a non-blocking channel
+     * @throws BufferUnderflowException if the range is not between the start() and readLimit()
+     * @throws IllegalStateException    if this BytesStore has been released
+     */
+    default long transferTo(@NotNull WritableByteChannel channel, @NonNegative long offset, @NonNegative long length)
+            throws IOException, BufferUnderflowException, IllegalStateException {
+        throwExceptionIfReleased(this);
+        if (offset < start() || length > readLimit() - offset)
+            throw new DecoratedBufferUnderflowException("Cannot transfer " + length + " bytes from " + offset + ", readLimit: " + readLimit());
+        final ByteBuffer bb = ByteBuffer.allocate((int) min(length, 64 << 10));
+        long written = 0;
+        while (written < length) {
+            bb.clear();
+            bb.limit((int) min(bb.capacity(), length - written));
+            read(offset + written, bb.array(), 0, bb.limit());
+            written += channel.write(bb);
+            if (bb.hasRemaining())
+                break;
+        }
+        return written;
+    }
+
+    /**
+     * Reads from a channel into a range of this BytesStore, see {@link #transferTo(WritableByteChannel, long, long)}
+     *
+     * @param channel to read from
+     * @param offset  of the start of the range
+     * @param length  the most bytes to read
+     * @return the number of bytes read, which stops short at the end of stream or when a non-blocking channel has
+     * no more to read, or -1 if the channel was at the end of stream
+     * @throws BufferOverflowException if the range is not between the start() and writeLimit()
+     * @throws IllegalStateException   if this BytesStore has been released
+     */
+    default long transferFrom(@NotNull ReadableByteChannel channel, @NonNegative long offset, @NonNegative long length)
+            throws IOException, BufferOverflowException, IllegalStateException {
+        throwExceptionIfReleased(this);
+        if (offset < start() || length > writeLimit() - offset)
+            throw new DecoratedBufferOverflowException("Cannot transfer " + length + " bytes to " + offset + ", writeLimit: " + writeLimit());
+        final ByteBuffer bb = ByteBuffer.allocate((int) min(length, 64 << 10));
+        long read = 0;
+        while (read < length) {
+            bb.clear();
+            bb.limit((int) min(bb.capacity(), length - read));
+            final int count = channel.read(bb);
+            if (count < 0)
+                return read == 0 ? -1 : read;
+            write(offset + read, bb.array(), 0, count);
+            read += count;
+            if (bb.hasRemaining())
+                break;
+        }
+        return read;
+    }
+
     /**
      * Copies the bytes in the BytesStore to an OutputStream object.
      *
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.bytes.internal.NativeBytesStore;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.posix.OpenFlag;
+import net.openhft.posix.PosixAPI;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static net.openhft.chronicle.core.io.Closeable.closeQuietly;
+
+/**
+ * An append only writer which bypasses the page cache using O_DIRECT on Linux, so bulk archival writes don't evict
+ * the pages latency sensitive readers of other files rely on.
+ * <p>
+ * Data is copied into one of two buffers aligned to the {@link #BLOCK_SIZE}. When a buffer is full it is written on
+ * a background thread while the other is filled. On close, the last block is padded for the write and the file is
+ * then truncated to the length appended, so it can be read with {@link MappedBytes#readOnly(File)}.
+ * <p>
+ * If the file system doesn't support O_DIRECT, e.g. tmpfs, the file is written through the page cache instead. On
+ * other platforms the buffers are written with a RandomAccessFile. This class is not thread safe.
+ */
+public class DirectIOWriter extends AbstractCloseable {
+    public static final int BLOCK_SIZE = 4096;
+    private static final int O_DIRECT = "aarch64".equals(System.getProperty("os.arch")) ? 0x10000 : 0x4000;
+
+    @NotNull
+    private final File file;
+    private final int fd;
+    private final RandomAccessFile raf;
+    private final ExecutorService writer;
+    private final int bufferSize;
+    private NativeBytesStore<Void> buffer;
+    private NativeBytesStore<Void> spare;
+    private int used;
+    private long position;
+    private Future<?> pending;
+
+    private DirectIOWriter(@NotNull File file, @NonNegative int bufferSize)
+            throws IOException {
+        this.file = file;
+        this.bufferSize = bufferSize;
+        if (OS.isLinux()) {
+            fd = open(file);
+            raf = null;
+        } else {
+            fd = -1;
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+        }
+        buffer = NativeBytesStore.alignedStoreWithFixedCapacity(bufferSize, BLOCK_SIZE);
+        spare = NativeBytesStore.alignedStoreWithFixedCapacity(bufferSize, BLOCK_SIZE);
+        writer = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, file.getName() + "/direct-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        singleThreadedCheckDisabled(true);
+    }
+
+    /**
+     * Create or truncate a file to write to.
+     *
+     * @param file       to write
+     * @param bufferSize of each of the two buffers, rounded up to a multiple of the BLOCK_SIZE
+     * @return the writer
+     * @throws IOException if the file couldn't be opened
+     */
+    @NotNull
+    public static DirectIOWriter open(@NotNull File file, @NonNegative int bufferSize)
+            throws IOException {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("bufferSize " + bufferSize + " must be positive");
+        return new DirectIOWriter(file, (bufferSize + BLOCK_SIZE - 1) & -BLOCK_SIZE);
+    }
+
+    private static int open(@NotNull File file)
+            throws IOException {
+        final PosixAPI posix = PosixAPI.posix();
+        final int flags = OpenFlag.O_WRONLY.value() | OpenFlag.O_CREAT.value() | OpenFlag.O_TRUNC.value();
+        int fd = posix.open(file.getAbsolutePath(), flags | O_DIRECT, 0644);
+        if (fd < 0) {
+            Jvm.debug().on(DirectIOWriter.class, "O_DIRECT not supported for " + file + ", writing through the page cache");
+            fd = posix.open(file.getAbsolutePath(), flags, 0644);
+        }
+        if (fd < 0)
+            throw new IOException("Unable to open " + file + " result: " + fd);
+        return fd;
+    }
+
+    /**
+     * @return the number of bytes appended
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Append the readable bytes without consuming them.
+     *
+     * @param bytes to append
+     */
+    public void append(@NotNull BytesStore<?, ?> bytes)
+            throws IOException, IllegalStateException {
+        append(bytes, bytes.readPosition(), bytes.readRemaining());
+    }
+
+    /**
+     * Append a range of a BytesStore.
+     *
+     * @param bytes  to append
+     * @param offset of the start of the range
+     * @param length of the range
+     */
+    public void append(@NotNull BytesStore<?, ?> bytes, @NonNegative long offset, @NonNegative long length)
+            throws IOException, IllegalStateException {
+        throwExceptionIfClosed();
+        while (length > 0) {
+            final int count = (int) Math.min(length, bufferSize - used);
+            buffer.write(used, bytes, offset, count);
+            used += count;
+            offset += count;
+            length -= count;
+            position += count;
+            if (used == bufferSize)
+                writeBuffer();
+        }
+    }
+
+    private void writeBuffer()
+            throws IOException {
+        awaitPending();
+        final NativeBytesStore<Void> full = buffer;
+        pending = writer.submit(() -> {
+            writeFully(full, bufferSize);
+            return null;
+        });
+        buffer = spare;
+        spare = full;
+        used = 0;
+    }
+
+    private void awaitPending()
+            throws IOException {
+        if (pending == null)
+            return;
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted writing to " + file);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to write to " + file, e.getCause());
+        } finally {
+            pending = null;
+        }
+    }
+
+    private void writeFully(@NotNull NativeBytesStore<Void> store, @NonNegative long length)
+            throws IOException {
+        if (raf != null) {
+            final byte[] bytes = new byte[(int) length];
+            store.read(0, bytes, 0, bytes.length);
+            raf.write(bytes);
+            return;
+        }
+        final long address = store.addressForRead(0);
+        for (long written = 0; written < length; ) {
+            final long count = PosixAPI.posix().write(fd, address + written, length - written);
+            if (count <= 0)
+                throw new IOException("Failed to write to " + file + " result: " + count);
+            written += count;
+        }
+    }
+
+    @Override
+    protected void performClose() {
+        try {
+            awaitPending();
+            if (used > 0) {
+                // O_DIRECT can only write whole blocks, the padding is truncated below
+                final int padded = (used + BLOCK_SIZE - 1) & -BLOCK_SIZE;
+                buffer.zeroOut(used, padded);
+                writeFully(buffer, padded);
+            }
+            if (raf != null)
+                raf.setLength(position);
+            else if (PosixAPI.posix().ftruncate(fd, position) != 0)
+                throw new IOException("Unable to truncate " + file + " to " + position);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        } finally {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (raf != null)
+                closeQuietly(raf);
+            else
+                PosixAPI.posix().close(fd);
+            buffer.releaseLast();
+            spare.releaseLast();
+        }
+    }
+}
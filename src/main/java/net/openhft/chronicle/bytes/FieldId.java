@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A stable id for a field of a {@link BytesMarshallable}, so data written with an older or newer version of the class
+ * can still be read. If any field has an id, every marshalled field must have one.
+ * <p>
+ * Such a class is written with a header of the number of fields and a hash of the ids and types, and each field is
+ * tagged with its id. When the header matches the reader's class, the fields are read in order, otherwise they are
+ * matched by id: fields the reader doesn't have are skipped, and fields missing from the data are reset to zero or null.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FieldId {
+    /**
+     * @return the id of the field, from 0 to 2^28 - 1, which must not be reused for a different field
+     */
+    int value();
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * How much an elastic {@link NativeBytes} grows by when it needs more space, set with
+ * {@link NativeBytes#growthPolicy(GrowthPolicy)}.
+ * <p>
+ * Every resize copies the content to the new memory, so growing more each time means fewer copies, at the cost of
+ * more unused memory. The size returned is always at least what is needed, and is then rounded to a page for native
+ * memory, or to 8 bytes on heap, and limited to the capacity of the Bytes.
+ */
+@FunctionalInterface
+public interface GrowthPolicy {
+
+    /**
+     * @return the default policy which grows by half as much again
+     */
+    @NotNull
+    static GrowthPolicy growByHalf() {
+        return (realCapacity, endOfBuffer) -> Math.max(endOfBuffer + 7, realCapacity * 3 / 2 + 32);
+    }
+
+    /**
+     * @return a policy which doubles the size each time
+     */
+    @NotNull
+    static GrowthPolicy doubling() {
+        return (realCapacity, endOfBuffer) -> Math.max(endOfBuffer, realCapacity * 2);
+    }
+
+    /**
+     * @param step to grow by, or a multiple of it if more is needed
+     * @return a policy which grows by a fixed amount
+     */
+    @NotNull
+    static GrowthPolicy fixedStep(@NonNegative long step) {
+        if (step <= 0)
+            throw new IllegalArgumentException("step " + step + " must be positive");
+        return (realCapacity, endOfBuffer) -> realCapacity + (endOfBuffer - realCapacity + step - 1) / step * step;
+    }
+
+    /**
+     * @param policy    to align the size of
+     * @param alignment a power of two e.g. 2 MiB for huge pages
+     * @return a policy which rounds the size of another up to the alignment
+     */
+    @NotNull
+    static GrowthPolicy aligned(@NotNull GrowthPolicy policy, @NonNegative long alignment) {
+        if (Long.bitCount(alignment) != 1)
+            throw new IllegalArgumentException("alignment " + alignment + " must be a power of two");
+        return (realCapacity, endOfBuffer) -> (policy.newCapacity(realCapacity, endOfBuffer) + alignment - 1) & -alignment;
+    }
+
+    /**
+     * @param policy    to limit
+     * @param maxGrowth the most to grow by, unless more is needed
+     * @return a policy which grows as another does, up to maxGrowth at a time
+     */
+    @NotNull
+    static GrowthPolicy capped(@NotNull GrowthPolicy policy, @NonNegative long maxGrowth) {
+        return (realCapacity, endOfBuffer) -> Math.min(policy.newCapacity(realCapacity, endOfBuffer),
+                Math.max(endOfBuffer, realCapacity + maxGrowth));
+    }
+
+    /**
+     * @param realCapacity the size of the current memory
+     * @param endOfBuffer  the size needed
+     * @return the size to grow to
+     */
+    long newCapacity(@NonNegative long realCapacity, @NonNegative long endOfBuffer);
+}
@@ -168,6 +168,19 @@ public abstract class MappedBytes extends AbstractBytes<Void> implements Closeab
         }
     }
 
+    /**
+     * With {@link SyncMode#BACKGROUND}, {@link #sync()} returns before the data is on disk. This can be polled to see how far
+     * the sync of the current chunk has progressed.
+     *
+     * @return the position up to which data is known to be on disk, see {@link MappedBytesStore#durablePosition()}
+     */
+    public long durablePosition() {
+        final BytesStore bs = bytesStore;
+        return bs instanceof MappedBytesStore
+                ? ((MappedBytesStore) bs).durablePosition()
+                : start();
+    }
+
     @Override
     public @NotNull Bytes<Void> bytesForRead() throws IllegalStateException {
         throwExceptionIfReleased();
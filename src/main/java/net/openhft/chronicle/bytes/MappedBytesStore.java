@@ -19,10 +19,13 @@ package net.openhft.chronicle.bytes;
 
 import net.openhft.chronicle.bytes.internal.NativeBytesStore;
 import net.openhft.chronicle.bytes.internal.ReferenceCountedUtil;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.bytes.util.DecoratedBufferUnderflowException;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.annotation.NonNegative;
 import net.openhft.chronicle.core.io.ReferenceOwner;
+import net.openhft.posix.MSyncFlag;
 import net.openhft.posix.PosixAPI;
 import org.jetbrains.annotations.NotNull;
 
@@ -30,7 +33,12 @@ import java.io.IOException;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static net.openhft.chronicle.core.util.Longs.requireNonNegative;
 import static net.openhft.chronicle.core.util.ObjectUtils.requireNonNull;
@@ -48,6 +56,12 @@ public class MappedBytesStore extends NativeBytesStore<Void> {
     private final long safeLimit;
     private SyncMode syncMode = MappedFile.DEFAULT_SYNC_MODE;
     private long syncLength = 0;
+    private final AtomicBoolean backgroundSyncRegistered = new AtomicBoolean();
+    private final AtomicLong backgroundSyncUpTo = new AtomicLong();
+    private BackgroundSyncer backgroundSyncer;
+    // the reservation held by the BackgroundSyncer, a new owner per registration
+    private volatile ReferenceOwner backgroundSyncOwner;
+    private volatile long durablePosition;
 
     protected MappedBytesStore(ReferenceOwner owner, MappedFile mappedFile, @NonNegative long start, long address, @NonNegative long capacity, @NonNegative long safeCapacity)
             throws IllegalStateException {
@@ -55,6 +69,8 @@ public class MappedBytesStore extends NativeBytesStore<Void> {
         this.mappedFile = mappedFile;
         this.start = start;
         this.safeLimit = start + safeCapacity;
+        this.backgroundSyncUpTo.set(start);
+        this.durablePosition = start;
         this.writeCheck = mappedFile.readOnly()
                 ? MappedBytesStore::throwReadOnly
                 : MappedBytesStore::readWriteOk;
@@ -345,27 +361,151 @@ public class MappedBytesStore extends NativeBytesStore<Void> {
         return super.appendUtf8(pos, chars, offset, length);
     }
 
+    /**
+     * Writes a range of the file with {@link FileChannel#transferTo}, so the kernel can copy it from the page cache.
+     */
+    @Override
+    public long transferTo(@NotNull WritableByteChannel channel, @NonNegative long offset, @NonNegative long length)
+            throws IOException, BufferUnderflowException, IllegalStateException {
+        throwExceptionIfReleased();
+        if (offset < start || length > limit - offset)
+            throw new DecoratedBufferUnderflowException("Cannot transfer " + length + " bytes from " + offset + ", limit: " + limit);
+        final FileChannel fileChannel = mappedFile.raf().getChannel();
+        long written = 0;
+        while (written < length) {
+            final long count = fileChannel.transferTo(offset + written, length - written, channel);
+            // stops at the end of the file or when a non-blocking channel is full
+            if (count <= 0)
+                break;
+            written += count;
+        }
+        return written;
+    }
+
+    /**
+     * Reads into a range of the file with {@link FileChannel#transferFrom}, the data is visible through this mapping.
+     * As for the default, -1 is returned if the channel was at the end of stream.
+     */
+    @Override
+    public long transferFrom(@NotNull ReadableByteChannel channel, @NonNegative long offset, @NonNegative long length)
+            throws IOException, BufferOverflowException, IllegalStateException {
+        throwExceptionIfReleased();
+        writeCheck.run();
+        if (offset < start || length > limit - offset)
+            throw new DecoratedBufferOverflowException("Cannot transfer " + length + " bytes to " + offset + ", limit: " + limit);
+        final FileChannel fileChannel = mappedFile.raf().getChannel();
+        long read = 0;
+        while (read < length) {
+            final long count = fileChannel.transferFrom(channel, offset + read, length - read);
+            if (count <= 0) {
+                // FileChannel.transferFrom returns 0 at the end of stream, read directly to tell this apart
+                if (read == 0)
+                    return super.transferFrom(channel, offset, length);
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
     /**
      * Sync the ByteStore if required.
      */
     @Override
     protected void performRelease() {
+        final long beginNs = System.nanoTime();
         if (address != 0 && syncMode != SyncMode.NONE && OS.isLinux()) {
             performMsync(0, safeLimit - start);
         }
         // must sync before releasing
         super.performRelease();
+        mappedFile.chunkUnmapped(this, System.nanoTime() - beginNs);
     }
 
     private void performMsync(long offset, long length) {
-        final SyncMode syncMode = this.syncMode();
+        performMsync(offset, length, this.syncMode());
+    }
+
+    private void performMsync(long offset, long length, SyncMode syncMode) {
         if (syncMode == SyncMode.NONE)
             return;
-        long start0 = System.currentTimeMillis();
+        long start0 = System.nanoTime();
         PosixAPI.posix().msync(address + offset, length, syncMode.mSyncFlag());
-        long time0 = System.currentTimeMillis() - start0;
-        if (time0 >= 20)
-            Jvm.perf().on(getClass(), "Took " + time0 / 1e3 + " seconds to " + syncMode + " " + mappedFile.file());
+        long time0 = System.nanoTime() - start0;
+        final MappedFileMetrics metrics = mappedFile.metrics();
+        if (metrics != null)
+            metrics.synced(length, time0);
+        if (time0 >= 20_000_000L)
+            Jvm.perf().on(getClass(), "Took " + time0 / 1e9 + " seconds to " + syncMode + " " + mappedFile.file());
+    }
+
+    /**
+     * Touch every page in a range so the page faults are taken now rather than on first access.
+     * Pages are touched with a write, which doesn't change their contents, unless the file is read only.
+     *
+     * @param offset of the start of the range
+     * @param length of the range
+     */
+    public void prefault(@NonNegative long offset, @NonNegative long length)
+            throws IllegalStateException {
+        throwExceptionIfReleased();
+        final long pageSize = OS.pageSize();
+        final long end = Math.min(offset + length, safeLimit);
+        final boolean readOnly = mappedFile.readOnly();
+        final MappedFileMetrics metrics = mappedFile.metrics();
+        final long[] faults = metrics != null && metrics.samplePageFaults() ? new long[2] : null;
+        if (faults != null && !MappedFileMetrics.threadPageFaults(faults))
+            faults[0] = -1;
+        for (long i = Math.max(offset, start); i < end; i += pageSize) {
+            if (readOnly)
+                memory.readByte(address - start + i);
+            else
+                // on x86 a compare and swap faults the page in for writing, even when it fails
+                memory.compareAndSwapInt(address - start + (i & ~3L), 0, 0);
+        }
+        if (faults != null && faults[0] >= 0) {
+            final long minor = faults[0];
+            final long major = faults[1];
+            if (MappedFileMetrics.threadPageFaults(faults))
+                metrics.pageFaults(faults[0] - minor, faults[1] - major);
+        }
+    }
+
+    /**
+     * Tell the OS how the whole of this mapping will be accessed.
+     *
+     * @param hint for the OS
+     * @return true if the hint was applied
+     * @see #advise(AccessHint, long, long)
+     */
+    public boolean advise(@NotNull AccessHint hint)
+            throws IllegalStateException {
+        return advise(hint, start, limit - start);
+    }
+
+    /**
+     * Tell the OS how a range of this mapping will be accessed. The range is extended to the start of its first page.
+     * This is only supported on Linux, and some hints such as HUGEPAGE depend on the kernel and the file system.
+     *
+     * @param hint   for the OS
+     * @param offset of the start of the range
+     * @param length of the range
+     * @return true if the hint was applied
+     */
+    public boolean advise(@NotNull AccessHint hint, @NonNegative long offset, @NonNegative long length)
+            throws IllegalStateException {
+        throwExceptionIfReleased();
+        final long from = Math.max(offset, start);
+        final long to = Math.min(offset + length, limit);
+        if (!OS.isLinux() || from >= to)
+            return false;
+        final long alignedFrom = (from - start) & -OS.pageSize();
+        final int result = PosixAPI.posix().madvise(address + alignedFrom, to - start - alignedFrom, hint.mAdviseFlag());
+        if (result != 0) {
+            Jvm.debug().on(getClass(), "Unable to apply " + hint + " to " + mappedFile.file() + " result: " + result);
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -386,12 +526,17 @@ public class MappedBytesStore extends NativeBytesStore<Void> {
 
     /**
      * Synchronise from the last complete page up to this position.
+     * <p>
+     * With {@link SyncMode#BACKGROUND} this only requests the sync, see {@link #durablePosition()}
      *
      * @param position to sync with the syncMode()
      */
     public void syncUpTo(long position) {
+        final SyncMode syncMode = syncMode();
         if (syncMode == SyncMode.NONE || address == 0 || refCount() <= 0)
             return;
+        if (syncMode == SyncMode.BACKGROUND && requestBackgroundSync(position))
+            return;
         long length = position - start;
         if (length <= syncLength)
             return;
@@ -402,5 +547,80 @@ public class MappedBytesStore extends NativeBytesStore<Void> {
         final long length2 = pageEnd - syncLength;
         performMsync(syncLength, length2);
         syncLength = position;
+        if (syncMode.mSyncFlag() == MSyncFlag.MS_SYNC)
+            durablePosition = Math.max(durablePosition, start + length);
+    }
+
+    /**
+     * The position up to which data is known to be on disk, from a sync with {@link SyncMode#SYNC} or
+     * {@link SyncMode#BACKGROUND}. With BACKGROUND a writer can poll this to see when the data it wrote is durable.
+     *
+     * @return the durable position, or start() if nothing has been synced
+     */
+    public long durablePosition() {
+        return durablePosition;
+    }
+
+    /**
+     * @return false if the background syncer has been closed, and the sync should be performed by the caller
+     */
+    private boolean requestBackgroundSync(long position) {
+        final long upTo = backgroundSyncUpTo.accumulateAndGet(Math.min(position, safeLimit), Math::max);
+        if (backgroundSyncRegistered.compareAndSet(false, true)) {
+            final BackgroundSyncer syncer = mappedFile.backgroundSyncer();
+            if (syncer == null) {
+                backgroundSyncRegistered.set(false);
+                return false;
+            }
+            final ReferenceOwner owner = ReferenceOwner.temporary("backgroundSync");
+            reserve(owner);
+            backgroundSyncOwner = owner;
+            backgroundSyncer = syncer;
+            if (!syncer.register(this)) {
+                release(owner);
+                backgroundSyncRegistered.set(false);
+                return false;
+            }
+
+        } else if (upTo - durablePosition >= BackgroundSyncer.THRESHOLD_BYTES) {
+            final BackgroundSyncer syncer = backgroundSyncer;
+            if (syncer != null)
+                syncer.wakeUp();
+        }
+        return true;
+    }
+
+    /**
+     * Called by the BackgroundSyncer to sync the pages requested since the last sync as one range.
+     */
+    void backgroundSync() {
+        final long upTo = backgroundSyncUpTo.get();
+        final long from = durablePosition;
+        if (upTo <= from)
+            return;
+        final long pageSize = OS.pageSize();
+        final long offset = (from - start) & -pageSize;
+        final long end = Math.min((upTo - start + pageSize - 1) & -pageSize, safeLimit - start);
+        performMsync(offset, end - offset, SyncMode.BACKGROUND);
+        durablePosition = upTo;
+    }
+
+    /**
+     * Called by the BackgroundSyncer when it no longer needs this store.
+     * <p>
+     * The flag is cleared before the release so a sync requested meanwhile registers again, with its own owner.
+     *
+     * @param closing true if the syncer is closing and must release the store regardless
+     * @return false if a sync was requested meanwhile and the store stays registered with the syncer
+     */
+    boolean backgroundSyncReleased(boolean closing) {
+        final ReferenceOwner owner = backgroundSyncOwner;
+        backgroundSyncRegistered.set(false);
+        if (!closing
+                && backgroundSyncUpTo.get() > durablePosition
+                && backgroundSyncRegistered.compareAndSet(false, true))
+            return false;
+        release(owner);
+        return true;
     }
 }
@@ -53,6 +53,12 @@ public abstract class MappedFile extends AbstractCloseableReferenceCounted {
     private final File file;
     private final boolean readOnly;
     protected NewChunkListener newChunkListener = MappedFile::logNewChunk;
+    private final Object backgroundSyncerLock = new Object();
+    private BackgroundSyncer backgroundSyncer;
+    private boolean backgroundSyncerClosed;
+    private volatile AccessHint accessHint = AccessHint.NORMAL;
+    private volatile boolean prefaultNewChunks;
+    private volatile MappedFileMetrics metrics;
 
     protected MappedFile(@NotNull final File file,
                          final boolean readOnly)
@@ -333,6 +339,134 @@ public abstract class MappedFile extends AbstractCloseableReferenceCounted {
 
     public abstract MappedBytes createBytesFor();
 
+    /**
+     * @return the offset into a chunk after which a writer has the next chunk mapped in the background, or -1 if disabled
+     */
+    public long preMapWatermark() {
+        return -1;
+    }
+
+    /**
+     * Map and pre-fault the chunk containing this position in the background, if this MappedFile has more than one chunk.
+     *
+     * @param position in the chunk to map
+     */
+    public void preMapAsync(@NonNegative long position) {
+        // only one chunk by default
+    }
+
+    /**
+     * @return the metrics recorded for this file, or null if none are
+     */
+    @Nullable
+    public MappedFileMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Record the mapping, unmapping, resizing and syncing of this file from now on.
+     *
+     * @param metrics to record to, or null to stop recording
+     */
+    public void metrics(@Nullable MappedFileMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Called after a store created by this MappedFile has been unmapped.
+     *
+     * @param mbs       unmapped
+     * @param elapsedNs the time taken to sync and unmap it
+     */
+    protected void chunkUnmapped(@NotNull MappedBytesStore mbs, long elapsedNs) {
+        final MappedFileMetrics metrics = this.metrics;
+        if (metrics != null)
+            metrics.unmapped(elapsedNs);
+    }
+
+    /**
+     * @return the syncer for stores using {@link SyncMode#BACKGROUND}, started on first use, or null if this has been released
+     */
+    @Nullable
+    BackgroundSyncer backgroundSyncer() {
+        synchronized (backgroundSyncerLock) {
+            if (backgroundSyncer == null && !backgroundSyncerClosed)
+                backgroundSyncer = new BackgroundSyncer(file.getName() + "/syncer");
+            return backgroundSyncer;
+        }
+    }
+
+    /**
+     * Sync any outstanding {@link SyncMode#BACKGROUND} requests and stop the background syncer, if it was started.
+     */
+    protected void closeBackgroundSyncer() {
+        final BackgroundSyncer syncer;
+        synchronized (backgroundSyncerLock) {
+            backgroundSyncerClosed = true;
+            syncer = backgroundSyncer;
+            backgroundSyncer = null;
+        }
+        if (syncer != null)
+            syncer.close();
+    }
+
+    /**
+     * @return the hint applied to each chunk as it is mapped
+     */
+    @NotNull
+    public AccessHint accessHint() {
+        return accessHint;
+    }
+
+    /**
+     * Tell the OS how this file will be accessed, e.g. SEQUENTIAL for a replay which scans the file, or RANDOM for
+     * lookups. This is applied to the chunks already mapped and each chunk mapped later.
+     * <p>
+     * By default, the hint is only recorded for chunks mapped later.
+     *
+     * @param accessHint to apply
+     */
+    public void accessHint(@NotNull AccessHint accessHint) {
+        accessHint0(accessHint);
+    }
+
+    protected void accessHint0(@NotNull AccessHint accessHint) {
+        this.accessHint = accessHint;
+    }
+
+    /**
+     * @return whether each chunk is pre-faulted when it is mapped
+     */
+    public boolean prefaultNewChunks() {
+        return prefaultNewChunks;
+    }
+
+    /**
+     * Touch every page of each chunk mapped from now on, so the mapping thread takes the page faults rather than
+     * the first accesses of the chunk.
+     * <p>
+     * A file from {@link #ofSingle(File, long, boolean)} is mapped as it is created, so this has no effect on it.
+     * Use {@link MappedBytesStore#prefault(long, long)} on its store instead.
+     *
+     * @param prefaultNewChunks whether to pre-fault
+     */
+    public void prefaultNewChunks(boolean prefaultNewChunks) {
+        this.prefaultNewChunks = prefaultNewChunks;
+    }
+
+    /**
+     * Apply the options for a new chunk. Pre-faulting can take a while so it shouldn't be called holding a lock.
+     *
+     * @param mbs newly mapped
+     */
+    protected void newChunkMapped(@NotNull MappedBytesStore mbs) {
+        final AccessHint hint = accessHint;
+        if (hint != AccessHint.NORMAL)
+            mbs.advise(hint);
+        if (prefaultNewChunks)
+            mbs.prefault(mbs.start(), mbs.safeLimit() - mbs.start());
+    }
+
     /**
      * This mode determines whether an MS_ASYNC or MS_SYNC should be performed on a chunk release.
      * <p>
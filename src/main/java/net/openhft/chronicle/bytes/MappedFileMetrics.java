@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.util.Histogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Counts and latency histograms in nanoseconds for the mapping, unmapping, resizing and syncing of a MappedFile, to
+ * find which files cause latency outliers. Add to a file with {@link MappedFile#metrics(MappedFileMetrics)}, an
+ * instance can be shared to aggregate several files.
+ * <p>
+ * Recording doesn't allocate. The methods are synchronized, so synchronize on this to read the histograms while they
+ * are being updated, or write them out with {@link BytesOut#writeHistogram(Histogram)}.
+ * <p>
+ * Optionally, on Linux, the minor and major page faults taken when a chunk is pre-faulted can be sampled. This reads
+ * from /proc so it does allocate.
+ */
+public class MappedFileMetrics {
+    private final Histogram mapLatency = new Histogram();
+    private final Histogram unmapLatency = new Histogram();
+    private final Histogram resizeLatency = new Histogram();
+    private final Histogram syncLatency = new Histogram();
+    private final Histogram minorFaultsPerChunk = new Histogram();
+    private final Histogram majorFaultsPerChunk = new Histogram();
+    private long mapCount;
+    private long unmapCount;
+    private long resizeCount;
+    private long syncCount;
+    private long syncBytes;
+    private volatile boolean samplePageFaults;
+
+    public synchronized void mapped(long elapsedNs) {
+        mapCount++;
+        mapLatency.sample(elapsedNs);
+    }
+
+    public synchronized void unmapped(long elapsedNs) {
+        unmapCount++;
+        unmapLatency.sample(elapsedNs);
+    }
+
+    public synchronized void resized(long elapsedNs) {
+        resizeCount++;
+        resizeLatency.sample(elapsedNs);
+    }
+
+    public synchronized void synced(long bytes, long elapsedNs) {
+        syncCount++;
+        syncBytes += bytes;
+        syncLatency.sample(elapsedNs);
+    }
+
+    public synchronized void pageFaults(long minorFaults, long majorFaults) {
+        minorFaultsPerChunk.sample(minorFaults);
+        majorFaultsPerChunk.sample(majorFaults);
+    }
+
+    public synchronized long mapCount() {
+        return mapCount;
+    }
+
+    public synchronized long unmapCount() {
+        return unmapCount;
+    }
+
+    public synchronized long resizeCount() {
+        return resizeCount;
+    }
+
+    public synchronized long syncCount() {
+        return syncCount;
+    }
+
+    public synchronized long syncBytes() {
+        return syncBytes;
+    }
+
+    @NotNull
+    public Histogram mapLatency() {
+        return mapLatency;
+    }
+
+    @NotNull
+    public Histogram unmapLatency() {
+        return unmapLatency;
+    }
+
+    @NotNull
+    public Histogram resizeLatency() {
+        return resizeLatency;
+    }
+
+    @NotNull
+    public Histogram syncLatency() {
+        return syncLatency;
+    }
+
+    @NotNull
+    public Histogram minorFaultsPerChunk() {
+        return minorFaultsPerChunk;
+    }
+
+    @NotNull
+    public Histogram majorFaultsPerChunk() {
+        return majorFaultsPerChunk;
+    }
+
+    public boolean samplePageFaults() {
+        return samplePageFaults;
+    }
+
+    /**
+     * @param samplePageFaults whether to count the page faults taken when a chunk is pre-faulted, only supported on Linux
+     * @return this
+     */
+    @NotNull
+    public MappedFileMetrics samplePageFaults(boolean samplePageFaults) {
+        this.samplePageFaults = samplePageFaults && OS.isLinux();
+        return this;
+    }
+
+    /**
+     * Read the page faults for the current thread from /proc/thread-self/stat
+     *
+     * @param faults to hold the minor and major page faults
+     * @return true if they could be read
+     */
+    static boolean threadPageFaults(long[] faults) {
+        try {
+            final String stat = new String(Files.readAllBytes(Paths.get("/proc/thread-self/stat")), StandardCharsets.ISO_8859_1);
+            // the command can contain spaces, so split after it. minflt and majflt are the 10th and 12th fields
+            final String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            faults[0] = Long.parseLong(fields[7]);
+            faults[1] = Long.parseLong(fields[9]);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MappedFileMetrics{" +
+                "maps=" + mapCount +
+                ", mapLatency=" + mapLatency.toMicrosFormat() +
+                ", unmaps=" + unmapCount +
+                ", unmapLatency=" + unmapLatency.toMicrosFormat() +
+                ", resizes=" + resizeCount +
+                ", resizeLatency=" + resizeLatency.toMicrosFormat() +
+                ", syncs=" + syncCount +
+                ", syncBytes=" + syncBytes +
+                ", syncLatency=" + syncLatency.toMicrosFormat() +
+                '}';
+    }
+}
@@ -47,6 +47,8 @@ public class NativeBytes<U>
     private static final boolean BYTES_GUARDED = Jvm.getBoolean("bytes.guarded");
     private static boolean newGuarded = BYTES_GUARDED;
     private long capacity;
+    @NotNull
+    private GrowthPolicy growthPolicy = GrowthPolicy.growByHalf();
 
     public NativeBytes(@NotNull final BytesStore store, @NonNegative final long capacity)
             throws IllegalStateException, IllegalArgumentException {
@@ -144,6 +146,21 @@ public class NativeBytes<U>
         return capacity;
     }
 
+    @NotNull
+    public GrowthPolicy growthPolicy() {
+        return growthPolicy;
+    }
+
+    /**
+     * @param growthPolicy used the next time this needs to resize
+     * @return this
+     */
+    @NotNull
+    public NativeBytes<U> growthPolicy(@NotNull GrowthPolicy growthPolicy) {
+        this.growthPolicy = requireNonNull(growthPolicy);
+        return this;
+    }
+
     @Override
     protected void writeCheckOffset(final @NonNegative long offset, final @NonNegative long adding)
             throws BufferOverflowException, IllegalStateException {
@@ -225,13 +242,12 @@ public class NativeBytes<U>
             return;
         }
 
-        // Grow by 50%
-        long size = Math.max(endOfBuffer + 7, realCapacity * 3 / 2 + 32);
+        long size = Math.max(endOfBuffer, growthPolicy.newCapacity(realCapacity, endOfBuffer));
         if (isDirectMemory() || size > MAX_HEAP_CAPACITY) {
             // Allocate direct memory of page granularity
             size = alignToPageSize(size);
         } else {
-            size &= ~0x7;
+            size = Math.max(size, endOfBuffer + 7) & ~0x7;
         }
         // Cap the size with capacity() again
         size = Math.min(size, capacity());
@@ -17,8 +17,10 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.ring.WaitStrategy;
 import net.openhft.chronicle.core.annotation.NonNegative;
 import net.openhft.chronicle.core.io.Closeable;
+import org.jetbrains.annotations.NotNull;
 
 public interface RingBufferReader extends RingBufferReaderStats, Closeable {
     long UNKNOWN_INDEX = -1;
@@ -57,6 +59,75 @@ public interface RingBufferReader extends RingBufferReaderStats, Closeable {
     @SuppressWarnings("rawtypes")
     boolean read(BytesOut<?> bytes);
 
+    /**
+     * Calls {@link #read(BytesOut)} until it succeeds or the {@code waitStrategy} gives up
+     *
+     * @param bytes        to read into
+     * @param waitStrategy to use while there is nothing to read, this should not be shared between threads
+     * @return whether read succeeded
+     */
+    @SuppressWarnings("rawtypes")
+    default boolean read(BytesOut<?> bytes, @NotNull WaitStrategy waitStrategy) {
+        waitStrategy.reset();
+        while (!read(bytes)) {
+            if (!waitStrategy.idle())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads up to {@code maxMessages} messages in place, passing each to the {@code reader} as a view of the
+     * ring buffer. The view is only valid for the duration of the call. If the {@code reader} throws, the read
+     * position is left after the last message fully read.
+     * <p>
+     * This default publishes the read position with {@link #afterRead(long)} after each message, as
+     * {@link #beforeRead(Bytes)} starts from the published position, and creates a view on each call.
+     * {@link net.openhft.chronicle.bytes.ring.VanillaMultiReaderBytesRingBuffer} overrides it to reuse one view and
+     * publish the read position once at the end of the batch.
+     *
+     * @param reader      to pass each message to
+     * @param maxMessages the maximum number of messages to read
+     * @return the number of messages read
+     */
+    @SuppressWarnings("rawtypes")
+    default int drainTo(@NotNull ReadBytesMarshallable reader, @NonNegative int maxMessages) {
+        final Bytes<?> bytes = byteStore().bytesForRead();
+        try {
+            int count = 0;
+            while (count < maxMessages && !isEmpty()) {
+                final long next = beforeRead(bytes);
+                reader.readMarshallable(bytes);
+                afterRead(next);
+                count++;
+            }
+            return count;
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    /**
+     * Calls {@link #drainTo(ReadBytesMarshallable, int)} until at least one message is read or the
+     * {@code waitStrategy} gives up
+     *
+     * @param reader       to pass each message to
+     * @param maxMessages  the maximum number of messages to read
+     * @param waitStrategy to use while there is nothing to read, this should not be shared between threads
+     * @return the number of messages read
+     */
+    default int drainTo(@NotNull ReadBytesMarshallable reader, @NonNegative int maxMessages, @NotNull WaitStrategy waitStrategy) {
+        if (maxMessages == 0)
+            return 0;
+        waitStrategy.reset();
+        int count;
+        while ((count = drainTo(reader, maxMessages)) == 0) {
+            if (!waitStrategy.idle())
+                break;
+        }
+        return count;
+    }
+
     /**
      * @return the byteStore which backs the ring buffer
      */
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.bytes.internal.SegmentedBytesStore;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+
+import static net.openhft.chronicle.core.io.ReferenceOwner.INIT;
+
+/**
+ * Elastic Bytes backed by a list of fixed size segments. It grows by adding a segment, so unlike
+ * {@link NativeBytes} the content is never copied, and on heap it isn't limited to {@link Bytes#MAX_HEAP_CAPACITY}.
+ * <p>
+ * Reads and writes inside one segment go straight to it, while those which span two segments are split into bytes.
+ * There is no contiguous address, so paths which need the address of direct memory are not used.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class SegmentedBytes extends AbstractBytes<Void> {
+
+    SegmentedBytes(@NotNull SegmentedBytesStore bytesStore)
+            throws IllegalStateException {
+        super((BytesStore) bytesStore, 0, bytesStore.capacity());
+    }
+
+    /**
+     * @param segmentSize of each segment of native memory, a power of two of at least 64 bytes
+     * @return elastic Bytes which grow a segment at a time
+     */
+    @NotNull
+    public static SegmentedBytes allocateDirect(@NonNegative int segmentSize) {
+        return of(new SegmentedBytesStore(segmentSize, true, Bytes.MAX_CAPACITY));
+    }
+
+    /**
+     * @param segmentSize of each byte[] segment, a power of two of at least 64 bytes
+     * @return elastic Bytes which grow a segment at a time
+     */
+    @NotNull
+    public static SegmentedBytes allocateOnHeap(@NonNegative int segmentSize) {
+        return of(new SegmentedBytesStore(segmentSize, false, Bytes.MAX_CAPACITY));
+    }
+
+    @NotNull
+    private static SegmentedBytes of(@NotNull SegmentedBytesStore store) {
+        try {
+            return new SegmentedBytes(store);
+        } catch (IllegalStateException e) {
+            throw new AssertionError(e);
+        } finally {
+            store.release(INIT);
+        }
+    }
+
+    private SegmentedBytesStore segmentedStore() {
+        return (SegmentedBytesStore) (BytesStore) bytesStore;
+    }
+
+    public int segmentSize() {
+        return segmentedStore().segmentSize();
+    }
+
+    @Override
+    public boolean isElastic() {
+        return true;
+    }
+
+    @Override
+    public @NonNegative long realCapacity() {
+        return segmentedStore().realCapacity();
+    }
+
+    @Override
+    public void ensureCapacity(@NonNegative long desiredCapacity)
+            throws IllegalArgumentException, IllegalStateException {
+        if (desiredCapacity < 0)
+            throw new IllegalArgumentException();
+        if (desiredCapacity > capacity())
+            throw new DecoratedBufferOverflowException("Cannot grow to " + desiredCapacity + ", capacity: " + capacity());
+        segmentedStore().ensureCapacity(desiredCapacity);
+    }
+
+    @Override
+    protected void writeCheckOffset(@NonNegative long offset, @NonNegative long adding)
+            throws BufferOverflowException, IllegalStateException {
+        super.writeCheckOffset(offset, adding);
+        segmentedStore().ensureCapacity(offset + adding);
+    }
+
+    @Override
+    protected void uncheckedWritePosition(@NonNegative long writePosition) {
+        // every byte up to the writePosition is readable
+        segmentedStore().ensureCapacity(writePosition);
+        super.uncheckedWritePosition(writePosition);
+    }
+
+    @NotNull
+    @Override
+    public BytesStore<Bytes<Void>, Void> copy()
+            throws IllegalStateException {
+        final SegmentedBytesStore store = segmentedStore();
+        final SegmentedBytes copy = of(new SegmentedBytesStore(store.segmentSize(), store.nativeSegments(), store.capacity()));
+        copy.write(this, readPosition(), readRemaining());
+        return copy;
+    }
+}
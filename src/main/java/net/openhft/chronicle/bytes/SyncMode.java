@@ -31,7 +31,12 @@ public enum SyncMode {
     /**
      * Schedule a sync to disk to be performed, but don't wait for it, if the platform supports this
      */
-    ASYNC(MSyncFlag.MS_ASYNC);
+    ASYNC(MSyncFlag.MS_ASYNC),
+    /**
+     * Wait for a sync to disk to be performed on a background thread, so the writer doesn't wait for it.
+     * The writer can poll {@link MappedBytesStore#durablePosition()} to see how much has been synced.
+     */
+    BACKGROUND(MSyncFlag.MS_SYNC);
 
     private final MSyncFlag mSyncFlag;
 
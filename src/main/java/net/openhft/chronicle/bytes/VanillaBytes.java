@@ -37,6 +37,8 @@
 
 import net.openhft.chronicle.bytes.internal.BytesInternal;
 import net.openhft.chronicle.bytes.internal.NativeBytesStore;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.bytes.util.DecoratedBufferUnderflowException;
 import net.openhft.chronicle.core.*;
 import net.openhft.chronicle.core.annotation.Java9;
 import net.openhft.chronicle.core.annotation.NonNegative;
@@ -45,9 +47,12 @@ import net.openhft.chronicle.core.util.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import static net.openhft.chronicle.core.util.Longs.requireNonNegative;
 import static net.openhft.chronicle.core.util.ObjectUtils.requireNonNull;
@@ -687,6 +692,24 @@ import static net.openhft.chronicle.core.util.ObjectUtils.requireNonNull;
             return super.toTemporaryDirectByteBuffer();
         }
 
+        @Override
+        public long transferTo(@NotNull WritableByteChannel channel, @NonNegative long offset, @NonNegative long length)
+                throws IOException, BufferUnderflowException, IllegalStateException {
+            throwExceptionIfReleased();
+            if (offset < start() || length > readLimit() - offset)
+                throw new DecoratedBufferUnderflowException("Cannot transfer " + length + " bytes from " + offset + ", readLimit: " + readLimit());
+            return bytesStore.transferTo(channel, offset, length);
+        }
+
+        @Override
+        public long transferFrom(@NotNull ReadableByteChannel channel, @NonNegative long offset, @NonNegative long length)
+                throws IOException, BufferOverflowException, IllegalStateException {
+            throwExceptionIfReleased();
+            if (offset < start() || length > writeLimit() - offset)
+                throw new DecoratedBufferOverflowException("Cannot transfer " + length + " bytes to " + offset + ", writeLimit: " + writeLimit());
+            return bytesStore.transferFrom(channel, offset, length);
+        }
+
         @Override
         public int read(byte[] bytes)
                 throws BufferUnderflowException, IllegalStateException {
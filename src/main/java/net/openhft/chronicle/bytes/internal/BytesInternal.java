@@ -51,7 +51,10 @@ import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.TimeZone;
 
@@ -77,6 +80,10 @@ enum BytesInternal {
     ; // none
     public static final ThreadLocal<ByteBuffer> BYTE_BUFFER_TL = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(0));
     public static final ThreadLocal<ByteBuffer> BYTE_BUFFER2_TL = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(0));
+    // direct ByteBuffers reused to point at native memory, and the buffers passed to a scattering or gathering channel
+    private static final ThreadLocal<ByteBuffer[]> DIRECT_VIEWS_TL = ThreadLocal.withInitial(() -> new ByteBuffer[0]);
+    private static final ThreadLocal<ByteBuffer[]> CHANNEL_VIEWS_TL = ThreadLocal.withInitial(() -> new ByteBuffer[0]);
+    private static final int MAX_CHANNEL_COPY = 1 << 20;
     public static final StringInternerBytes SI;
     static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
     private static final String INFINITY = "Infinity";
@@ -3385,6 +3392,118 @@ enum BytesInternal {
         byteBuffer.clear();
     }
 
+    /**
+     * Write the readable bytes of each Bytes in order with one call to the channel, and advance each readPosition by
+     * the bytes written from it.
+     */
+    public static long gatheringWrite(@NotNull GatheringByteChannel channel, @NotNull Bytes<?>[] bytes)
+            throws IOException, IllegalStateException {
+        final ByteBuffer[] views = channelViews(bytes.length);
+        try {
+            final int count = assignChannelViews(bytes, views, false);
+            final long written = channel.write(views, 0, count);
+            for (int i = 0; i < count; i++)
+                bytes[i].readSkip(views[i].position());
+            return written;
+        } finally {
+            clearChannelViews(bytes.length);
+        }
+    }
+
+    /**
+     * Read into the space after the writePosition of each Bytes in order with one call to the channel, and advance each
+     * writePosition by the bytes read into it. Elastic Bytes are not resized, only their current realCapacity is used.
+     */
+    public static long scatteringRead(@NotNull ScatteringByteChannel channel, @NotNull Bytes<?>[] bytes)
+            throws IOException, IllegalStateException {
+        final ByteBuffer[] views = channelViews(bytes.length);
+        try {
+            final int count = assignChannelViews(bytes, views, true);
+            final long read = channel.read(views, 0, count);
+            for (int i = 0; i < count && read > 0; i++) {
+                final Bytes<?> b = bytes[i];
+                final ByteBuffer view = views[i];
+                final int length = view.position();
+                if (length == 0)
+                    continue;
+                // a temporary copy has to be written back
+                if (!view.isDirect() && view.array() != b.bytesStore().underlyingObject())
+                    b.write(b.writePosition(), view.array(), 0, length);
+                b.writeSkip(length);
+            }
+            return read;
+        } finally {
+            clearChannelViews(bytes.length);
+        }
+    }
+
+    @NotNull
+    private static ByteBuffer[] channelViews(int length) {
+        ByteBuffer[] direct = DIRECT_VIEWS_TL.get();
+        if (direct.length < length) {
+            final int from = direct.length;
+            direct = Arrays.copyOf(direct, length);
+            for (int i = from; i < length; i++)
+                direct[i] = ByteBuffer.allocateDirect(0);
+            DIRECT_VIEWS_TL.set(direct);
+            CHANNEL_VIEWS_TL.set(new ByteBuffer[length]);
+        }
+        return CHANNEL_VIEWS_TL.get();
+    }
+
+    /**
+     * Point a ByteBuffer at the range of each Bytes to read from, or write to. Native and byte[] backed Bytes are not
+     * copied. If a range is only partly available, e.g. it extends past the current chunk of a MappedBytes, the views
+     * stop there so the data stays in order.
+     *
+     * @return the number of views assigned
+     */
+    private static int assignChannelViews(@NotNull Bytes<?>[] bytes, @NotNull ByteBuffer[] views, boolean forWrite)
+            throws IllegalStateException {
+        final ByteBuffer[] direct = DIRECT_VIEWS_TL.get();
+        for (int i = 0; i < bytes.length; i++) {
+            final Bytes<?> b = requireNonNull(bytes[i]);
+            throwExceptionIfReleased(b);
+            final BytesStore<?, ?> bs = b.bytesStore();
+            final long offset = forWrite ? b.writePosition() : b.readPosition();
+            final long wanted = forWrite
+                    ? Math.min(b.writeLimit(), b.realCapacity()) - offset
+                    : b.readRemaining();
+            final long available = Math.min(forWrite ? b.writeLimit() : b.readLimit(), bs.safeLimit()) - offset;
+            final boolean inStore = bs.start() <= offset && available > 0;
+            int length;
+            if (inStore && bs.isDirectMemory()) {
+                length = (int) Math.min(Math.min(wanted, available), 1 << 30);
+                final long address = forWrite ? bs.addressForWrite(offset) : bs.addressForRead(offset);
+                ByteBuffers.setAddressCapacity(direct[i], address, length);
+                direct[i].clear();
+                views[i] = direct[i];
+            } else if (inStore && bs.underlyingObject() instanceof byte[]) {
+                length = (int) Math.min(wanted, available);
+                views[i] = ByteBuffer.wrap((byte[]) bs.underlyingObject(), (int) offset, length).slice();
+            } else {
+                length = (int) Math.min(wanted, MAX_CHANNEL_COPY);
+                final byte[] copy = new byte[length];
+                if (!forWrite)
+                    b.read(offset, copy, 0, length);
+                views[i] = ByteBuffer.wrap(copy);
+            }
+            if (length < wanted)
+                return i + 1;
+        }
+        return bytes.length;
+    }
+
+    private static void clearChannelViews(int length) {
+        final ByteBuffer[] direct = DIRECT_VIEWS_TL.get();
+        final ByteBuffer[] views = CHANNEL_VIEWS_TL.get();
+        for (int i = 0; i < length; i++) {
+            ByteBuffers.setAddressCapacity(direct[i], 0, 0);
+            direct[i].clear();
+            views[i] = null;
+        }
+    }
+
     private static boolean canReadBytesAt(
             final BytesStore bs, final long offset, final int length) {
         return bs.readLimit() - offset >= length;
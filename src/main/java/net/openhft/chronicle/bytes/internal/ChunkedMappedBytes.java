@@ -43,6 +43,8 @@ import static net.openhft.chronicle.core.util.ObjectUtils.requireNonNull;
  */
 @SuppressWarnings({"rawtypes"})
 public class ChunkedMappedBytes extends CommonMappedBytes {
+    // write position after which the next chunk is mapped in the background
+    private long preMapTrigger = Long.MAX_VALUE;
 
     // assume the mapped file is reserved already.
     public ChunkedMappedBytes(@NotNull final MappedFile mappedFile)
@@ -259,6 +261,8 @@ public class ChunkedMappedBytes extends CommonMappedBytes {
         throwExceptionIfClosed();
         if (offset + adding < start() || offset > mappedFile.capacity() - adding)
             throw writeBufferOverflowException0(offset);
+        if (offset >= preMapTrigger)
+            preMapNextChunk();
         BytesStore bytesStore = this.bytesStore;
         if (adding > 0 && !bytesStore.inside(offset, checkSize0(adding - 1))) {
             if (bytesStore.start() > offset)
@@ -271,6 +275,11 @@ public class ChunkedMappedBytes extends CommonMappedBytes {
         }
     }
 
+    private void preMapNextChunk() {
+        preMapTrigger = Long.MAX_VALUE;
+        mappedFile.preMapAsync(bytesStore.start() + mappedFile.chunkSize());
+    }
+
     private long checkSize0(long adding) {
         if (adding < 0 || adding > MAX_CAPACITY)
             throw new IllegalArgumentException("Invalid size " + adding);
@@ -342,6 +351,8 @@ public class ChunkedMappedBytes extends CommonMappedBytes {
                     oldBS.release(this);
                 if (lastActualSize < newBS.maximumLimit)
                     lastActualSize = newBS.maximumLimit;
+                final long preMapWatermark = mappedFile.preMapWatermark();
+                preMapTrigger = preMapWatermark < 0 ? Long.MAX_VALUE : newBS.start() + preMapWatermark;
             }
             assert newBS.reservedBy(this);
 
@@ -22,10 +22,13 @@ import net.openhft.chronicle.core.CleaningRandomAccessFile;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.cleaner.CleanerServiceLocator;
 import net.openhft.chronicle.core.io.IORuntimeException;
 import net.openhft.chronicle.core.io.ReferenceOwner;
 import net.openhft.chronicle.core.onoes.Slf4jExceptionHandler;
 import org.jetbrains.annotations.NotNull;
+import net.openhft.posix.OpenFlag;
+import net.openhft.posix.PosixAPI;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
@@ -33,6 +36,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
@@ -41,6 +45,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import static net.openhft.chronicle.core.io.Closeable.closeQuietly;
 
@@ -50,15 +61,43 @@ import static net.openhft.chronicle.core.io.Closeable.closeQuietly;
  */
 @SuppressWarnings({"restriction"})
 public class ChunkedMappedFile extends MappedFile {
+    private static final int MAX_RETAINED_CHUNKS = Jvm.getInteger("mappedFile.maxRetainedChunks", 0);
+    private static final int FALLOC_FL_KEEP_SIZE = 1;
     @NotNull
     private final RandomAccessFile raf;
     private final FileChannel fileChannel;
     private final long chunkSize;
     private final long overlapSize;
-    private final List<MappedBytesStore> stores = new ArrayList<>();
+    // copied when it needs to grow, and republished so looking up a chunk already mapped doesn't need a lock.
+    private volatile AtomicReferenceArray<MappedBytesStore> stores = new AtomicReferenceArray<>(16);
+    // one more than the highest chunk ever acquired, the chunks reported by referenceCounts()
+    private volatile int chunksAcquired;
+    private final Object storesLock = new Object();
     private final long capacity;
     private long[] chunkCount = {0L};
     private SyncMode syncMode = DEFAULT_SYNC_MODE;
+    private final ReferenceOwner preMapper = ReferenceOwner.temporary("preMapper");
+    private final Object preMapLock = new Object();
+    private volatile long preMapWatermark = -1;
+    private ExecutorService preMapExecutor;
+    private MappedBytesStore preMapped;
+    private boolean preMapClosed;
+    private final ReferenceOwner retainer = ReferenceOwner.temporary("retainer");
+    // holds a chunk while advising it, as this MappedFile already has its own reservation
+    private final ReferenceOwner adviser = ReferenceOwner.temporary("adviser");
+    // the chunks kept mapped after they are released, evicted with the CLOCK algorithm, guarded by storesLock
+    private int[] retained = {};
+    private int retainedCount;
+    private int clockHand;
+    // set when a chunk is used and cleared as the clock hand passes. A lost update only changes which chunk is evicted.
+    private volatile AtomicIntegerArray accessed;
+    private final LongAdder chunkHits = new LongAdder();
+    private final LongAdder chunkMaps = new LongAdder();
+    private final LongAdder chunkUnmaps = new LongAdder();
+    private volatile int preallocateChunks;
+    private volatile boolean preallocateZeroFill;
+    // only accessed by the pre-mapper thread
+    private long preallocatedTo;
 
     public ChunkedMappedFile(@NotNull final File file,
                              @NotNull final RandomAccessFile raf,
@@ -76,6 +115,8 @@ public class ChunkedMappedFile extends MappedFile {
         this.capacity = capacity;
 
         Jvm.doNotCloseOnInterrupt(getClass(), this.fileChannel);
+        if (MAX_RETAINED_CHUNKS > 0)
+            maxRetainedChunks(MAX_RETAINED_CHUNKS);
     }
 
     public static void warmup() {
@@ -154,18 +195,15 @@ public class ChunkedMappedFile extends MappedFile {
             throw new IOException("Attempt to access a negative position: " + position);
         final int chunk = (int) (position / chunkSize);
 
-        final MappedBytesStore mbs;
-        synchronized (stores) {
-            while (stores.size() <= chunk)
-                stores.add(null);
-            mbs = stores.get(chunk);
-        }
+        final AtomicReferenceArray<MappedBytesStore> stores = this.stores;
+        final MappedBytesStore mbs = chunk < stores.length() ? stores.get(chunk) : null;
         if (mbs != null) {
             // don't reserve it again if we are already holding it.
             if (mbs == oldByteStore) {
                 return mbs;
             }
             if (mbs.tryReserve(owner)) {
+                chunkUsed(chunk);
                 return mbs;
             }
         }
@@ -174,14 +212,17 @@ public class ChunkedMappedFile extends MappedFile {
         // from acquiring the next block
         resizeRafIfTooSmall(chunk);
 
-        synchronized (stores) {
+        final MappedBytesStore mbs2;
+        synchronized (storesLock) {
 
             // We are back, protected by synchronized, and need to
             // update our view on previous existence (we might have been stalled
             // for a long time since we last checked dues to resizing and another
             // thread might have added a MappedByteStore (very unlikely but still possible))
-            final MappedBytesStore mbs1 = stores.get(chunk);
+            final AtomicReferenceArray<MappedBytesStore> stores1 = storesFor(chunk);
+            final MappedBytesStore mbs1 = stores1.get(chunk);
             if (mbs1 != null && mbs1.tryReserve(owner)) {
+                chunkUsed(chunk);
                 return mbs1;
             }
             // *** THIS CAN TAKE A LONG TIME IF A RESIZE HAS TO OCCUR ***
@@ -197,32 +238,353 @@ public class ChunkedMappedFile extends MappedFile {
             throwExceptionIfClosed();
 
             final long address = OS.map(fileChannel, mode, startOfMap, mappedSize);
-            final MappedBytesStore mbs2 =
-                    mappedBytesStoreFactory.create(owner, this, chunk * this.chunkSize, address, mappedSize, this.chunkSize);
+            mbs2 = mappedBytesStoreFactory.create(owner, this, chunk * this.chunkSize, address, mappedSize, this.chunkSize);
             mbs2.syncMode(syncMode);
             if (RETAIN)
                 mbs2.reserve(this);
-            stores.set(chunk, mbs2);
+            stores1.set(chunk, mbs2);
+            chunkMaps.increment();
+            retain(chunk, mbs2);
 
             final long elapsedNs = System.nanoTime() - beginNs;
+            final MappedFileMetrics metrics = metrics();
+            if (metrics != null)
+                metrics.mapped(elapsedNs);
             if (newChunkListener != null)
                 newChunkListener.onNewChunk(file().getPath(), chunk, elapsedNs / 1000);
             chunkCount[0]++;
             if (elapsedNs >= 2_000_000L)
                 Jvm.perf().on(getClass(), "Took " + elapsedNs / 1_000_000L + " ms to add mapping for " + file());
+        }
+        newChunkMapped(mbs2);
+        if (preallocateChunks > 0 && !readOnly()) {
+            final long preallocateTo = Math.min(capacity, (chunk + 1L + preallocateChunks) * chunkSize + overlapSize);
+            runInBackground(() -> preallocate(preallocateTo));
+        }
+        return mbs2;
+    }
+
+    private void chunkUsed(@NonNegative final int chunk) {
+        chunkHits.increment();
+        final AtomicIntegerArray accessed = this.accessed;
+        if (accessed != null && chunk < accessed.length())
+            accessed.lazySet(chunk, 1);
+    }
+
+    /**
+     * Keep a chunk just mapped in the CLOCK, evicting another chunk if it is full.
+     */
+    private void retain(@NonNegative final int chunk, @NotNull final MappedBytesStore mbs) {
+        assert Thread.holdsLock(storesLock);
+        if (retained.length == 0 || RETAIN)
+            return;
+        mbs.reserve(retainer);
+        if (retainedCount < retained.length) {
+            retained[retainedCount++] = chunk;
+            return;
+        }
+        final int slot = victim();
+        releaseRetained(retained[slot]);
+        retained[slot] = chunk;
+    }
 
-            return mbs2;
+    private int victim() {
+        final AtomicIntegerArray accessed = this.accessed;
+        // after two sweeps every chunk has had its accessed flag cleared
+        for (int i = 0; i < 2 * retainedCount; i++) {
+            final int slot = nextSlot();
+            final int chunk = retained[slot];
+            // chunks still in use, or used since the hand last passed, get another chance
+            if (chunk < accessed.length() && accessed.getAndSet(chunk, 0) != 0)
+                continue;
+            if (stores.get(chunk).refCount() > 1)
+                continue;
+            return slot;
+        }
+        return nextSlot();
+    }
+
+    private int nextSlot() {
+        final int slot = clockHand;
+        clockHand = (slot + 1) % retainedCount;
+        return slot;
+    }
+
+    private void releaseRetained(@NonNegative final int chunk) {
+        try {
+            stores.get(chunk).release(retainer);
+        } catch (IllegalStateException e) {
+            Jvm.debug().on(getClass(), e);
+        }
+    }
+
+    /**
+     * @return the number of chunks after the last chunk mapped which are preallocated in the background
+     */
+    public int preallocateChunks() {
+        return preallocateChunks;
+    }
+
+    /**
+     * Allocate the disk space for the chunks after the last chunk mapped in a background thread, so writes to a new
+     * chunk don't wait for the file system to allocate blocks, and the file is less fragmented. On Linux this uses
+     * fallocate, which leaves the size of the file unchanged.
+     * <p>
+     * With zeroFill the chunks are also written with zeros, which extends the file. This avoids the file system
+     * converting unwritten extents on the first write to each block, and works on any platform.
+     *
+     * @param preallocateChunks the number of chunks to preallocate, or 0 to disable
+     * @param zeroFill          whether to write zeros to the chunks preallocated
+     */
+    public void preallocateChunks(@NonNegative final int preallocateChunks, final boolean zeroFill) {
+        if (preallocateChunks < 0)
+            throw new IllegalArgumentException("preallocateChunks " + preallocateChunks + " must not be negative");
+        this.preallocateZeroFill = zeroFill;
+        this.preallocateChunks = preallocateChunks;
+    }
+
+    private void preallocate(final long preallocateTo) {
+        final long from = preallocatedTo;
+        if (preallocateTo <= from)
+            return;
+        final long beginNs = System.nanoTime();
+        try {
+            if (OS.isLinux())
+                fallocate(from, preallocateTo);
+            if (preallocateZeroFill)
+                zeroFill(preallocateTo);
+            preallocatedTo = preallocateTo;
+        } catch (IOException e) {
+            Jvm.debug().on(getClass(), "Unable to preallocate " + file() + " to " + preallocateTo, e);
+        }
+        final long elapsedNs = System.nanoTime() - beginNs;
+        if (elapsedNs >= 10_000_000L)
+            Jvm.perf().on(getClass(), "Took " + elapsedNs / 1_000_000L + " ms to preallocate " + file() + " to " + preallocateTo);
+    }
+
+    private void fallocate(final long from, final long preallocateTo) {
+        final PosixAPI posix = PosixAPI.posix();
+        final int fd = posix.open(file().getAbsolutePath(), OpenFlag.O_RDWR, 0);
+        if (fd < 0) {
+            Jvm.debug().on(getClass(), "Unable to open " + file() + " to fallocate");
+            return;
+        }
+        try {
+            final int result = posix.fallocate(fd, FALLOC_FL_KEEP_SIZE, from, preallocateTo - from);
+            if (result != 0)
+                Jvm.debug().on(getClass(), "Unable to fallocate " + file() + " result: " + result);
+        } finally {
+            posix.close(fd);
+        }
+    }
+
+    /**
+     * Write zeros from the end of the file, holding the same locks as a resize so no data written can be overwritten.
+     */
+    private void zeroFill(final long preallocateTo)
+            throws IOException {
+        final ByteBuffer zeros = ByteBuffer.allocateDirect(1 << 20);
+        synchronized (internalizedToken()) {
+            try (FileLock ignore = fileChannel.lock()) {
+                for (long position = fileChannel.size(); position < preallocateTo; ) {
+                    zeros.clear();
+                    if (zeros.remaining() > preallocateTo - position)
+                        zeros.limit((int) (preallocateTo - position));
+                    position += fileChannel.write(zeros, position);
+                }
+            }
+        } finally {
+            CleanerServiceLocator.cleanerService().clean(zeros);
+        }
+    }
+
+    /**
+     * @return the maximum number of chunks kept mapped after they are released
+     */
+    public int maxRetainedChunks() {
+        return retained.length;
+    }
+
+    /**
+     * Keep up to this many chunks mapped after they are released, so a random reader doesn't map a chunk again each
+     * time it returns to it. Once the limit is reached, mapping another chunk unmaps the chunk least recently used,
+     * chosen with the CLOCK algorithm. This bounds the memory mapped for chunks no one is using; chunks still in use
+     * stay mapped regardless.
+     * <p>
+     * This has no effect if {@code mappedFile.retain} is set, as every chunk is kept mapped.
+     *
+     * @param maxRetainedChunks to keep mapped, or 0 to unmap each chunk as soon as it is released
+     */
+    public void maxRetainedChunks(@NonNegative final int maxRetainedChunks) {
+        if (maxRetainedChunks < 0)
+            throw new IllegalArgumentException("maxRetainedChunks " + maxRetainedChunks + " must not be negative");
+        synchronized (storesLock) {
+            throwExceptionIfClosed();
+            while (retainedCount > maxRetainedChunks) {
+                final int slot = victim();
+                releaseRetained(retained[slot]);
+                retained[slot] = retained[--retainedCount];
+                clockHand = retainedCount == 0 ? 0 : clockHand % retainedCount;
+            }
+            final int[] retained2 = new int[maxRetainedChunks];
+            System.arraycopy(retained, 0, retained2, 0, retainedCount);
+            retained = retained2;
+            if (maxRetainedChunks == 0)
+                accessed = null;
+            else if (accessed == null)
+                accessed = new AtomicIntegerArray(stores.length());
+        }
+    }
+
+    /**
+     * @return the number of times a chunk was acquired while it was already mapped
+     */
+    public long chunkHits() {
+        return chunkHits.sum();
+    }
+
+    /**
+     * @return the number of times a chunk was mapped
+     */
+    public long chunkMaps() {
+        return chunkMaps.sum();
+    }
+
+    /**
+     * @return the number of times a chunk was unmapped
+     */
+    public long chunkUnmaps() {
+        return chunkUnmaps.sum();
+    }
+
+    @Override
+    protected void chunkUnmapped(@NotNull MappedBytesStore mbs, long elapsedNs) {
+        super.chunkUnmapped(mbs, elapsedNs);
+        chunkUnmaps.increment();
+    }
+
+    @Override
+    public long preMapWatermark() {
+        return preMapWatermark;
+    }
+
+    /**
+     * Once a writer passes this offset into a chunk, the next chunk is mapped and pre-faulted in a background thread
+     * so the writer doesn't wait for the file to grow and be mapped when it gets there.
+     *
+     * @param preMapWatermark offset into a chunk, or -1 to disable
+     */
+    public void preMapWatermark(long preMapWatermark) {
+        if (preMapWatermark >= chunkSize)
+            throw new IllegalArgumentException("preMapWatermark " + preMapWatermark + " must be less than the chunkSize " + chunkSize);
+        this.preMapWatermark = preMapWatermark < 0 ? -1 : preMapWatermark;
+    }
+
+    @Override
+    public void preMapAsync(@NonNegative long position) {
+        if (readOnly() || position >= capacity)
+            return;
+        runInBackground(() -> preMap(position));
+    }
+
+    /**
+     * Run a task on the pre-mapper thread, unless this has been released.
+     */
+    private void runInBackground(@NotNull final Runnable task) {
+        synchronized (preMapLock) {
+            if (preMapClosed)
+                return;
+            if (preMapExecutor == null)
+                preMapExecutor = Executors.newSingleThreadExecutor(r -> {
+                    final Thread thread = new Thread(r, file().getName() + "/pre-mapper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            try {
+                preMapExecutor.submit(task);
+            } catch (RejectedExecutionException e) {
+                Jvm.debug().on(getClass(), e);
+            }
+        }
+    }
+
+    private void preMap(final long position) {
+        try {
+            final MappedBytesStore mbs = acquireByteStore(preMapper, position, null, MappedBytesStore.MAPPED_BYTES_STORE_FACTORY);
+            mbs.prefault(mbs.start(), chunkSize);
+            final MappedBytesStore previous;
+            synchronized (preMapLock) {
+                if (preMapClosed) {
+                    previous = mbs;
+                } else {
+                    previous = preMapped;
+                    preMapped = mbs;
+                }
+            }
+            // the writer has acquired the previous chunk by now, so it is no longer needed to keep it mapped
+            if (previous != null)
+                previous.release(preMapper);
+        } catch (IOException | IllegalStateException e) {
+            Jvm.debug().on(getClass(), "Unable to pre-map " + file() + " at " + position, e);
+        }
+    }
+
+    /**
+     * @return the stores array, grown if needed to hold this chunk
+     */
+    private AtomicReferenceArray<MappedBytesStore> storesFor(@NonNegative final int chunk) {
+        assert Thread.holdsLock(storesLock);
+        if (chunk >= chunksAcquired)
+            chunksAcquired = chunk + 1;
+        final AtomicReferenceArray<MappedBytesStore> stores = this.stores;
+        if (chunk < stores.length())
+            return stores;
+        int length = stores.length();
+        while (length <= chunk)
+            length *= 2;
+        final AtomicReferenceArray<MappedBytesStore> stores2 = new AtomicReferenceArray<>(length);
+        for (int i = 0; i < stores.length(); i++)
+            stores2.set(i, stores.get(i));
+        this.stores = stores2;
+        final AtomicIntegerArray accessed = this.accessed;
+        if (accessed != null) {
+            final AtomicIntegerArray accessed2 = new AtomicIntegerArray(length);
+            for (int i = 0; i < accessed.length(); i++)
+                accessed2.set(i, accessed.get(i));
+            this.accessed = accessed2;
+        }
+        return stores2;
+    }
+
+    @Override
+    public void accessHint(@NotNull AccessHint accessHint) {
+        synchronized (storesLock) {
+            final AtomicReferenceArray<MappedBytesStore> stores = this.stores;
+            for (int i = 0; i < stores.length(); i++) {
+                final MappedBytesStore store = stores.get(i);
+                if (store != null && store.tryReserve(adviser)) {
+                    try {
+                        store.advise(accessHint);
+                    } finally {
+                        store.release(adviser);
+                    }
+                }
+            }
+            accessHint0(accessHint);
         }
     }
 
     @Override
     public void syncMode(SyncMode syncMode) {
-        synchronized (stores) {
-            for (MappedBytesStore store : stores) {
-                store.syncMode(syncMode);
+        synchronized (storesLock) {
+            final AtomicReferenceArray<MappedBytesStore> stores = this.stores;
+            for (int i = 0; i < stores.length(); i++) {
+                final MappedBytesStore store = stores.get(i);
+                if (store != null)
+                    store.syncMode(syncMode);
             }
+            this.syncMode = syncMode;
         }
-        this.syncMode = syncMode;
     }
 
     private void resizeRafIfTooSmall(@NonNegative final int chunk)
@@ -258,6 +620,9 @@ public class ChunkedMappedFile extends MappedFile {
                         }
                     }
                     final long elapsedNs = System.nanoTime() - beginNs;
+                    final MappedFileMetrics metrics = metrics();
+                    if (metrics != null)
+                        metrics.resized(elapsedNs);
                     if (elapsedNs >= 1_000_000L) {
                         Jvm.perf().on(getClass(), "Took " + elapsedNs / 1000L + " us to grow file " + file());
                     }
@@ -270,8 +635,14 @@ public class ChunkedMappedFile extends MappedFile {
 
     protected void performRelease() {
         try {
-            synchronized (stores) {
-                for (int i = 0; i < stores.size(); i++) {
+            releasePreMapped();
+            closeBackgroundSyncer();
+            synchronized (storesLock) {
+                for (int i = 0; i < retainedCount; i++)
+                    releaseRetained(retained[i]);
+                retainedCount = 0;
+                final AtomicReferenceArray<MappedBytesStore> stores = this.stores;
+                for (int i = 0; i < stores.length(); i++) {
                     final MappedBytesStore mbs = stores.get(i);
                     if (mbs != null && RETAIN) {
                         // this MappedFile is the only referrer to the MappedBytesStore at this point,
@@ -292,11 +663,34 @@ public class ChunkedMappedFile extends MappedFile {
         }
     }
 
+    private void releasePreMapped() {
+        final ExecutorService executor;
+        final MappedBytesStore mbs;
+        synchronized (preMapLock) {
+            preMapClosed = true;
+            executor = preMapExecutor;
+            mbs = preMapped;
+            preMapped = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (mbs != null)
+            mbs.release(preMapper);
+    }
+
     @NotNull
     public String referenceCounts() {
         @NotNull final StringBuilder sb = new StringBuilder();
         sb.append("refCount: ").append(refCount());
-        for (@Nullable final MappedBytesStore mbs : stores) {
+        final AtomicReferenceArray<MappedBytesStore> stores = this.stores;
+        for (int i = 0, n = Math.min(chunksAcquired, stores.length()); i < n; i++) {
+            @Nullable final MappedBytesStore mbs = stores.get(i);
             long count = 0;
             if (mbs != null)
                 count = mbs.refCount();
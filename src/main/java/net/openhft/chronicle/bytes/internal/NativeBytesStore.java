@@ -18,20 +18,28 @@
 package net.openhft.chronicle.bytes.internal;
 
 import net.openhft.chronicle.bytes.*;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.bytes.util.DecoratedBufferUnderflowException;
 import net.openhft.chronicle.core.*;
 import net.openhft.chronicle.core.annotation.NonNegative;
 import net.openhft.chronicle.core.cleaner.CleanerServiceLocator;
 import net.openhft.chronicle.core.cleaner.spi.ByteBufferCleanerService;
 import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.core.util.ByteBuffers;
 import net.openhft.chronicle.core.util.Longs;
 import net.openhft.chronicle.core.util.SimpleCleaner;
+import net.openhft.posix.MAdviseFlag;
+import net.openhft.posix.PosixAPI;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 
 import static net.openhft.chronicle.bytes.Bytes.MAX_CAPACITY;
@@ -43,6 +51,10 @@ import static net.openhft.chronicle.core.util.ObjectUtils.requireNonNull;
 @SuppressWarnings({"restriction", "rawtypes", "unchecked"})
 public class NativeBytesStore<U>
         extends AbstractBytesStore<NativeBytesStore<U>, U> {
+    /**
+     * The size of a transparent huge page on x86_64 and most aarch64 kernels
+     */
+    public static final long HUGE_PAGE_SIZE = 2 << 20;
     private static final long MEMORY_MAPPED_SIZE = 128 << 10;
     private static final Field BB_ADDRESS;
     private static final Field BB_CAPACITY;
@@ -157,6 +169,59 @@ public class NativeBytesStore<U>
         return of(capacity, true, false);
     }
 
+    /**
+     * A fixed capacity store which the OS can back with transparent huge pages, to reduce TLB misses when a large store
+     * is accessed randomly. The memory is aligned to a huge page and advised with MADV_HUGEPAGE before it is zeroed.
+     * <p>
+     * On other platforms, for stores smaller than a huge page, or if transparent huge pages are disabled, this is an
+     * ordinary native store.
+     *
+     * @param capacity of the store
+     */
+    @NotNull
+    public static NativeBytesStore<Void> hugePageStoreWithFixedCapacity(@NonNegative long capacity)
+            throws IllegalArgumentException {
+        if (!OS.isLinux() || capacity < HUGE_PAGE_SIZE)
+            return nativeStoreWithFixedCapacity(capacity);
+
+        final NativeBytesStore<Void> store = lazyAlignedStore(capacity, HUGE_PAGE_SIZE);
+        if (PosixAPI.posix().madvise(store.address, capacity & -HUGE_PAGE_SIZE, MAdviseFlag.MADV_HUGEPAGE) != 0)
+            Jvm.debug().on(NativeBytesStore.class, "Transparent huge pages are not available");
+        // the first access to each page is when it is zeroed
+        store.memory.setMemory(store.address, capacity, (byte) 0);
+        store.memory.storeFence();
+        return store;
+    }
+
+    /**
+     * A fixed capacity store which starts at an address which is a multiple of the alignment, e.g. for buffers used
+     * with O_DIRECT which must be aligned to the block size.
+     *
+     * @param capacity  of the store
+     * @param alignment a power of two
+     */
+    @NotNull
+    public static NativeBytesStore<Void> alignedStoreWithFixedCapacity(@NonNegative long capacity, @NonNegative long alignment)
+            throws IllegalArgumentException {
+        if (Long.bitCount(alignment) != 1)
+            throw new IllegalArgumentException("alignment " + alignment + " must be a power of two");
+        final NativeBytesStore<Void> store = lazyAlignedStore(capacity, alignment);
+        store.memory.setMemory(store.address, capacity, (byte) 0);
+        store.memory.storeFence();
+        return store;
+    }
+
+    @NotNull
+    private static NativeBytesStore<Void> lazyAlignedStore(@NonNegative long capacity, @NonNegative long alignment) {
+        Memory memory = OS.memory();
+        // allocate extra so the start can be aligned
+        final long size = capacity + alignment;
+        final long address = memory.allocate(size);
+        final long aligned = (address + alignment - 1) & -alignment;
+        @NotNull Deallocator deallocator = new Deallocator(address, size);
+        return new NativeBytesStore<>(aligned, capacity, deallocator, false);
+    }
+
     @NotNull
     public static NativeBytesStore<Void> lazyNativeBytesStoreWithFixedCapacity(@NonNegative long capacity)
             throws IllegalArgumentException {
@@ -623,6 +688,65 @@ public class NativeBytesStore<U>
         return BytesInternal.toString(this);
     }
 
+    @Override
+    public long transferTo(@NotNull WritableByteChannel channel, @NonNegative long offset, @NonNegative long length)
+            throws IOException, BufferUnderflowException, IllegalStateException {
+        throwExceptionIfReleased();
+        if (offset < start() || length > readLimit() - offset)
+            throw new DecoratedBufferUnderflowException("Cannot transfer " + length + " bytes from " + offset + ", readLimit: " + readLimit());
+        long written = 0;
+        while (written < length) {
+            final int count = (int) Math.min(length - written, 1 << 30);
+            final ByteBuffer bb = transferView(addressForRead(offset + written), count);
+            try {
+                written += channel.write(bb);
+                if (bb.hasRemaining())
+                    break;
+            } finally {
+                clearTransferView(bb);
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public long transferFrom(@NotNull ReadableByteChannel channel, @NonNegative long offset, @NonNegative long length)
+            throws IOException, BufferOverflowException, IllegalStateException {
+        throwExceptionIfReleased();
+        if (offset < start() || length > writeLimit() - offset)
+            throw new DecoratedBufferOverflowException("Cannot transfer " + length + " bytes to " + offset + ", writeLimit: " + writeLimit());
+        long read = 0;
+        while (read < length) {
+            final int count = (int) Math.min(length - read, 1 << 30);
+            final ByteBuffer bb = transferView(addressForWrite(offset + read), count);
+            try {
+                final int n = channel.read(bb);
+                if (n < 0)
+                    return read == 0 ? -1 : read;
+                read += n;
+                if (bb.hasRemaining())
+                    break;
+            } finally {
+                clearTransferView(bb);
+            }
+        }
+        return read;
+    }
+
+    // points the thread local ByteBuffer at the memory being transferred, so a transfer doesn't allocate one
+    @NotNull
+    private static ByteBuffer transferView(long address, @NonNegative int length) {
+        final ByteBuffer bb = BytesInternal.BYTE_BUFFER_TL.get();
+        ByteBuffers.setAddressCapacity(bb, address, length);
+        bb.clear();
+        return bb;
+    }
+
+    private static void clearTransferView(@NotNull ByteBuffer bb) {
+        ByteBuffers.setAddressCapacity(bb, 0, 0);
+        bb.clear();
+    }
+
     @Override
     public void nativeRead(@NonNegative long position, long address, @NonNegative long size)
             throws BufferUnderflowException, IllegalStateException {
@@ -0,0 +1,543 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.internal;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.BytesUtil;
+import net.openhft.chronicle.bytes.RandomDataInput;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static net.openhft.chronicle.core.util.Longs.requireNonNegative;
+import static net.openhft.chronicle.core.util.ObjectUtils.requireNonNull;
+
+/**
+ * A BytesStore made of fixed size segments of native memory or byte[], which grows by adding segments, so its
+ * content is never copied and doesn't need one contiguous allocation. On heap, it can be larger than 2 GB.
+ * <p>
+ * An access which lies inside one segment is passed to that segment. One which spans two segments is read or written
+ * a byte at a time. Volatile, ordered and compare-and-swap accesses must lie inside one segment, which is always the
+ * case when they are aligned to their size.
+ * <p>
+ * This store has no contiguous address, so {@link #isDirectMemory()} is false even for native segments.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class SegmentedBytesStore
+        extends AbstractBytesStore<SegmentedBytesStore, Void> {
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private final int segmentSize;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final boolean direct;
+    private final long capacity;
+    private BytesStore[] segments = {};
+    private int segmentCount;
+
+    /**
+     * @param segmentSize of each segment, a power of two of at least 64 bytes
+     * @param direct      whether segments are native memory rather than byte[]
+     * @param capacity    the most this store can grow to
+     */
+    public SegmentedBytesStore(@NonNegative int segmentSize, boolean direct, @NonNegative long capacity) {
+        super(false);
+        if (segmentSize < 64 || Integer.bitCount(segmentSize) != 1)
+            throw new IllegalArgumentException("segmentSize " + segmentSize + " must be a power of two of at least 64");
+        this.segmentSize = segmentSize;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+        this.segmentMask = segmentSize - 1L;
+        this.direct = direct;
+        this.capacity = requireNonNegative(capacity);
+    }
+
+    public int segmentSize() {
+        return segmentSize;
+    }
+
+    public boolean nativeSegments() {
+        return direct;
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Add segments until there are at least desiredCapacity bytes.
+     */
+    public void ensureCapacity(@NonNegative long desiredCapacity)
+            throws BufferOverflowException, IllegalStateException {
+        if (desiredCapacity <= realCapacity())
+            return;
+        if (desiredCapacity > capacity)
+            throw new DecoratedBufferOverflowException("Cannot grow to " + desiredCapacity + ", capacity: " + capacity);
+        throwExceptionIfReleased();
+        final long needed = (desiredCapacity + segmentMask) >>> segmentShift;
+        if (needed > segments.length)
+            segments = Arrays.copyOf(segments, (int) Math.min(Integer.MAX_VALUE, Math.max(needed, segments.length * 2L)));
+        while (segmentCount < needed) {
+            segments[segmentCount++] = direct
+                    ? NativeBytesStore.lazyNativeBytesStoreWithFixedCapacity(segmentSize)
+                    : HeapBytesStore.wrap(new byte[segmentSize]);
+        }
+    }
+
+    private BytesStore segment(@NonNegative long offset) {
+        return segments[(int) (offset >>> segmentShift)];
+    }
+
+    private boolean inOneSegment(@NonNegative long offset, int length) {
+        return (offset & segmentMask) + length <= segmentSize;
+    }
+
+    // the segment for an access which has to be atomic
+    private BytesStore atomicSegment(@NonNegative long offset, int length) {
+        if (!inOneSegment(offset, length))
+            throw new IllegalArgumentException("An atomic access of " + length + " bytes at " + offset + " spans two segments");
+        return segment(offset);
+    }
+
+    private long readSlow(@NonNegative long offset, int length)
+            throws BufferUnderflowException, IllegalStateException {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            final int shift = LITTLE_ENDIAN ? i << 3 : (length - 1 - i) << 3;
+            value |= (readByte(offset + i) & 0xFFL) << shift;
+        }
+        return value;
+    }
+
+    private void writeSlow(@NonNegative long offset, long value, int length)
+            throws BufferOverflowException, IllegalStateException {
+        for (int i = 0; i < length; i++) {
+            final int shift = LITTLE_ENDIAN ? i << 3 : (length - 1 - i) << 3;
+            writeByte(offset + i, (byte) (value >>> shift));
+        }
+    }
+
+    // the bytes which can be accessed from offset without leaving its segment
+    private int segmentRemaining(@NonNegative long offset, long length) {
+        return (int) Math.min(length, segmentSize - (offset & segmentMask));
+    }
+
+    @Override
+    public boolean isDirectMemory() {
+        return false;
+    }
+
+    @Override
+    public @NonNegative long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public @NonNegative long realCapacity() {
+        return (long) segmentCount << segmentShift;
+    }
+
+    @Override
+    public long safeLimit() {
+        return realCapacity();
+    }
+
+    @Nullable
+    @Override
+    public Void underlyingObject() {
+        return null;
+    }
+
+    @Override
+    public boolean sharedMemory() {
+        return false;
+    }
+
+    @NotNull
+    @Override
+    public BytesStore<SegmentedBytesStore, Void> copy()
+            throws IllegalStateException {
+        final SegmentedBytesStore copy = new SegmentedBytesStore(segmentSize, direct, capacity);
+        copy.ensureCapacity(realCapacity());
+        copy.write(0, this, 0, realCapacity());
+        return copy;
+    }
+
+    @Override
+    protected void performRelease() {
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i].releaseLast();
+            segments[i] = null;
+        }
+        segmentCount = 0;
+    }
+
+    @Override
+    public byte readByte(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return segment(offset).readByte(offset & segmentMask);
+    }
+
+    @Override
+    public short readShort(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return inOneSegment(offset, 2)
+                ? segment(offset).readShort(offset & segmentMask)
+                : (short) readSlow(offset, 2);
+    }
+
+    @Override
+    public int readInt(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return inOneSegment(offset, 4)
+                ? segment(offset).readInt(offset & segmentMask)
+                : (int) readSlow(offset, 4);
+    }
+
+    @Override
+    public long readLong(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return inOneSegment(offset, 8)
+                ? segment(offset).readLong(offset & segmentMask)
+                : readSlow(offset, 8);
+    }
+
+    @Override
+    public float readFloat(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return Float.intBitsToFloat(readInt(offset));
+    }
+
+    @Override
+    public double readDouble(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return Double.longBitsToDouble(readLong(offset));
+    }
+
+    @Override
+    public byte readVolatileByte(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return segment(offset).readVolatileByte(offset & segmentMask);
+    }
+
+    @Override
+    public short readVolatileShort(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return atomicSegment(offset, 2).readVolatileShort(offset & segmentMask);
+    }
+
+    @Override
+    public int readVolatileInt(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return atomicSegment(offset, 4).readVolatileInt(offset & segmentMask);
+    }
+
+    @Override
+    public long readVolatileLong(@NonNegative long offset)
+            throws BufferUnderflowException, IllegalStateException {
+        return atomicSegment(offset, 8).readVolatileLong(offset & segmentMask);
+    }
+
+    @Override
+    public long read(@NonNegative long offsetInRDI, byte[] bytes, @NonNegative int offset, @NonNegative int length)
+            throws IllegalStateException {
+        requireNonNull(bytes);
+        final int len = (int) Math.min(length, requireNonNegative(readLimit() - offsetInRDI));
+        for (int done = 0; done < len; ) {
+            final int count = segmentRemaining(offsetInRDI + done, len - done);
+            segment(offsetInRDI + done).read((offsetInRDI + done) & segmentMask, bytes, offset + done, count);
+            done += count;
+        }
+        return len;
+    }
+
+    @Override
+    public boolean compareAndSwapInt(@NonNegative long offset, int expected, int value)
+            throws BufferOverflowException, IllegalStateException {
+        return atomicSegment(offset, 4).compareAndSwapInt(offset & segmentMask, expected, value);
+    }
+
+    @Override
+    public void testAndSetInt(@NonNegative long offset, int expected, int value)
+            throws BufferOverflowException, IllegalStateException {
+        atomicSegment(offset, 4).testAndSetInt(offset & segmentMask, expected, value);
+    }
+
+    @Override
+    public boolean compareAndSwapLong(@NonNegative long offset, long expected, long value)
+            throws BufferOverflowException, IllegalStateException {
+        return atomicSegment(offset, 8).compareAndSwapLong(offset & segmentMask, expected, value);
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeByte(@NonNegative long offset, byte i8)
+            throws BufferOverflowException, IllegalStateException {
+        segment(offset).writeByte(offset & segmentMask, i8);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeShort(@NonNegative long offset, short i16)
+            throws BufferOverflowException, IllegalStateException {
+        if (inOneSegment(offset, 2))
+            segment(offset).writeShort(offset & segmentMask, i16);
+        else
+            writeSlow(offset, i16, 2);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeInt(@NonNegative long offset, int i32)
+            throws BufferOverflowException, IllegalStateException {
+        if (inOneSegment(offset, 4))
+            segment(offset).writeInt(offset & segmentMask, i32);
+        else
+            writeSlow(offset, i32, 4);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeLong(@NonNegative long offset, long i64)
+            throws BufferOverflowException, IllegalStateException {
+        if (inOneSegment(offset, 8))
+            segment(offset).writeLong(offset & segmentMask, i64);
+        else
+            writeSlow(offset, i64, 8);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeFloat(@NonNegative long offset, float f)
+            throws BufferOverflowException, IllegalStateException {
+        return writeInt(offset, Float.floatToRawIntBits(f));
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeDouble(@NonNegative long offset, double d)
+            throws BufferOverflowException, IllegalStateException {
+        return writeLong(offset, Double.doubleToRawLongBits(d));
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeOrderedInt(@NonNegative long offset, int i)
+            throws BufferOverflowException, IllegalStateException {
+        atomicSegment(offset, 4).writeOrderedInt(offset & segmentMask, i);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeOrderedLong(@NonNegative long offset, long i)
+            throws BufferOverflowException, IllegalStateException {
+        atomicSegment(offset, 8).writeOrderedLong(offset & segmentMask, i);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeVolatileByte(@NonNegative long offset, byte i8)
+            throws BufferOverflowException, IllegalStateException {
+        segment(offset).writeVolatileByte(offset & segmentMask, i8);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeVolatileShort(@NonNegative long offset, short i16)
+            throws BufferOverflowException, IllegalStateException {
+        atomicSegment(offset, 2).writeVolatileShort(offset & segmentMask, i16);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeVolatileInt(@NonNegative long offset, int i32)
+            throws BufferOverflowException, IllegalStateException {
+        atomicSegment(offset, 4).writeVolatileInt(offset & segmentMask, i32);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore writeVolatileLong(@NonNegative long offset, long i64)
+            throws BufferOverflowException, IllegalStateException {
+        atomicSegment(offset, 8).writeVolatileLong(offset & segmentMask, i64);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore write(@NonNegative long offsetInRDO, byte[] byteArray, @NonNegative int offset, @NonNegative int length)
+            throws BufferOverflowException, IllegalStateException {
+        requireNonNull(byteArray);
+        for (int done = 0; done < length; ) {
+            final int count = segmentRemaining(offsetInRDO + done, length - done);
+            segment(offsetInRDO + done).write((offsetInRDO + done) & segmentMask, byteArray, offset + done, count);
+            done += count;
+        }
+        return this;
+    }
+
+    @Override
+    public void write(@NonNegative long offsetInRDO, @NotNull ByteBuffer bytes, @NonNegative int offset, @NonNegative int length)
+            throws BufferOverflowException, IllegalStateException {
+        if (bytes.hasArray()) {
+            write(offsetInRDO, bytes.array(), bytes.arrayOffset() + offset, length);
+            return;
+        }
+        int i = 0;
+        for (; i < length - 7; i += 8)
+            writeLong(offsetInRDO + i, bytes.order() == ByteOrder.nativeOrder()
+                    ? bytes.getLong(offset + i)
+                    : Long.reverseBytes(bytes.getLong(offset + i)));
+        for (; i < length; i++)
+            writeByte(offsetInRDO + i, bytes.get(offset + i));
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore write(@NonNegative long writeOffset, @NotNull RandomDataInput bytes, @NonNegative long readOffset, @NonNegative long length)
+            throws BufferOverflowException, BufferUnderflowException, IllegalStateException {
+        requireNonNull(bytes);
+        for (long done = 0; done < length; ) {
+            final int count = segmentRemaining(writeOffset + done, length - done);
+            segment(writeOffset + done).write((writeOffset + done) & segmentMask, bytes, readOffset + done, count);
+            done += count;
+        }
+        return this;
+    }
+
+    @Override
+    public long write8bit(@NonNegative long position, @NotNull BytesStore bs) {
+        requireNonNull(bs);
+        final long length = bs.readRemaining();
+        position = BytesUtil.writeStopBit(this, position, length);
+        write(position, bs, bs.readPosition(), length);
+        return position + length;
+    }
+
+    @Override
+    public long write8bit(@NonNegative long position, @NotNull String s, @NonNegative int start, @NonNegative int length) {
+        requireNonNull(s);
+        position = BytesUtil.writeStopBit(this, position, length);
+        for (int i = 0; i < length; i++)
+            writeByte(position + i, (byte) s.charAt(start + i));
+        return position + length;
+    }
+
+    @Override
+    public void move(@NonNegative long from, @NonNegative long to, @NonNegative long length)
+            throws BufferUnderflowException, IllegalStateException, ArithmeticException {
+        if (from < 0 || to < 0 || length < 0) throw new IllegalArgumentException();
+        if (length == (int) length
+                && from >>> segmentShift == to >>> segmentShift
+                && inOneSegment(from, (int) length) && inOneSegment(to, (int) length)) {
+            segment(from).move(from & segmentMask, to & segmentMask, length);
+        } else if (from > to) {
+            for (long i = 0; i < length; i++)
+                writeByte(to + i, readByte(from + i));
+        } else {
+            for (long i = length - 1; i >= 0; i--)
+                writeByte(to + i, readByte(from + i));
+        }
+    }
+
+    @NotNull
+    @Override
+    public SegmentedBytesStore zeroOut(@NonNegative long start, @NonNegative long end)
+            throws IllegalStateException {
+        end = Math.min(end, realCapacity());
+        for (long i = start; i < end; ) {
+            final int count = segmentRemaining(i, end - i);
+            segment(i).zeroOut(i & segmentMask, (i & segmentMask) + count);
+            i += count;
+        }
+        return this;
+    }
+
+    @Override
+    public long addressForRead(@NonNegative long offset)
+            throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("A SegmentedBytesStore has no contiguous address");
+    }
+
+    @Override
+    public long addressForWrite(@NonNegative long offset)
+            throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("A SegmentedBytesStore has no contiguous address");
+    }
+
+    @Override
+    public long addressForWritePosition()
+            throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("A SegmentedBytesStore has no contiguous address");
+    }
+
+    @Override
+    public void nativeRead(@NonNegative long position, @NonNegative long address, @NonNegative long size)
+            throws BufferUnderflowException, IllegalStateException {
+        for (long done = 0; done < size; ) {
+            final int count = segmentRemaining(position + done, size - done);
+            segment(position + done).nativeRead((position + done) & segmentMask, address + done, count);
+            done += count;
+        }
+    }
+
+    @Override
+    public void nativeWrite(@NonNegative long address, @NonNegative long position, @NonNegative long size)
+            throws BufferOverflowException, IllegalStateException {
+        for (long done = 0; done < size; ) {
+            final int count = segmentRemaining(position + done, size - done);
+            segment(position + done).nativeWrite(address + done, (position + done) & segmentMask, count);
+            done += count;
+        }
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return BytesInternal.toString(this);
+    }
+
+    // Explicitly overrides because this class adds properties which triggers static analyzing warnings unless
+    // this method is overridden
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    // Explicitly overrides because this class adds properties which triggers static analyzing warnings unless
+    // this method is overridden
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj);
+    }
+}
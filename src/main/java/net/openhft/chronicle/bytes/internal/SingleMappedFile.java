@@ -91,6 +91,12 @@ public class SingleMappedFile extends MappedFile {
         }
     }
 
+    @Override
+    public void accessHint(@NotNull AccessHint accessHint) {
+        store.advise(accessHint);
+        accessHint0(accessHint);
+    }
+
     @Override
     public void syncMode(SyncMode syncMode) {
         store.syncMode(syncMode);
@@ -154,6 +160,7 @@ public class SingleMappedFile extends MappedFile {
 
     protected void performRelease() {
         try {
+            closeBackgroundSyncer();
             final MappedBytesStore mbs = store;
             if (mbs != null && RETAIN) {
                 // this MappedFile is the only referrer to the MappedBytesStore at this point,
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.pool;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import net.openhft.chronicle.core.io.IOTools;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of elastic off-heap Bytes in power of two size classes, which can be acquired on one thread and returned
+ * from any other, so a hand-off pipeline can recycle its buffers rather than allocate one per message.
+ * <p>
+ * Each size class holds at most {@code maxRetainedBytesPerClass} bytes, and at most {@link #MAX_BUFFERS_PER_CLASS}
+ * buffers. Buffers returned to a full class, or larger than the largest class, are released. Acquiring and returning
+ * are lock free and don't allocate once the pool is warm.
+ * <p>
+ * A Bytes acquired must be returned at most once, and not used after it has been returned.
+ */
+public class SizeClassedBytesPool extends AbstractCloseable {
+    static final int MAX_BUFFERS_PER_CLASS = Jvm.getInteger("bytesPool.maxBuffersPerClass", 64);
+
+    private final int minShift;
+    private final AtomicReferenceArray<Bytes<Void>>[] classes;
+    private final LongAdder acquires = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder returns = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+
+    /**
+     * A pool of classes from 256 bytes to 1 MiB, retaining up to 4 MiB per class.
+     */
+    public SizeClassedBytesPool() {
+        this(256, 1 << 20, 4 << 20);
+    }
+
+    /**
+     * @param minClassSize             the capacity of the smallest class, rounded up to a power of two
+     * @param maxClassSize             the capacity of the largest class, rounded up to a power of two
+     * @param maxRetainedBytesPerClass the most bytes each class can hold, at least one buffer is held per class
+     */
+    @SuppressWarnings("unchecked")
+    public SizeClassedBytesPool(@NonNegative int minClassSize, @NonNegative int maxClassSize, @NonNegative long maxRetainedBytesPerClass) {
+        if (minClassSize <= 0 || maxClassSize < minClassSize || maxClassSize > 1 << 30)
+            throw new IllegalArgumentException("Invalid class sizes " + minClassSize + " to " + maxClassSize);
+        minShift = shiftFor(minClassSize);
+        final int count = shiftFor(maxClassSize) - minShift + 1;
+        classes = new AtomicReferenceArray[count];
+        for (int i = 0; i < count; i++) {
+            final long buffers = Math.max(1, maxRetainedBytesPerClass >> (minShift + i));
+            classes[i] = new AtomicReferenceArray<>((int) Math.min(MAX_BUFFERS_PER_CLASS, buffers));
+        }
+        singleThreadedCheckDisabled(true);
+    }
+
+    private static int shiftFor(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * Acquire a clear Bytes with a realCapacity of at least minCapacity. It can grow beyond this as it is elastic.
+     *
+     * @param minCapacity to acquire
+     * @return a Bytes to {@link #release(Bytes)} when finished with
+     */
+    @NotNull
+    public Bytes<Void> acquire(@NonNegative long minCapacity)
+            throws IllegalStateException {
+        throwExceptionIfClosed();
+        acquires.increment();
+        final int index = Math.max(0, shiftFor(Maths.toUInt31(Math.max(1, minCapacity))) - minShift);
+        if (index < classes.length) {
+            final AtomicReferenceArray<Bytes<Void>> slots = classes[index];
+            final int start = start(slots);
+            for (int i = 0; i < slots.length(); i++) {
+                final int slot = (start + i) % slots.length();
+                if (slots.get(slot) == null)
+                    continue;
+                final Bytes<Void> bytes = slots.getAndSet(slot, null);
+                if (bytes != null) {
+                    // it may have been used by another thread
+                    bytes.singleThreadedCheckReset();
+                    return bytes;
+                }
+            }
+        }
+        misses.increment();
+        final Bytes<Void> bytes = Bytes.allocateElasticDirect(1L << (Math.max(index, 0) + minShift));
+        IOTools.unmonitor(bytes);
+        return bytes;
+    }
+
+    /**
+     * Return a Bytes to the pool, from any thread. If its class is full, it is released.
+     *
+     * @param bytes to return
+     */
+    public void release(@NotNull Bytes<Void> bytes)
+            throws IllegalStateException {
+        returns.increment();
+        // it may be returned on a thread other than the one which used it
+        bytes.singleThreadedCheckReset();
+        // the largest class which fits in its capacity, as it may have grown
+        final int index = 31 - Integer.numberOfLeadingZeros((int) Math.min(bytes.realCapacity(), 1 << 30)) - minShift;
+        if (!isClosing() && index >= 0 && index < classes.length) {
+            bytes.clear();
+            final AtomicReferenceArray<Bytes<Void>> slots = classes[index];
+            final int start = start(slots);
+            for (int i = 0; i < slots.length(); i++) {
+                final int slot = (start + i) % slots.length();
+                if (slots.get(slot) == null && slots.compareAndSet(slot, null, bytes)) {
+                    // the pool may have been closed after the check above, in which case the slots are emptied again
+                    if (isClosing() && slots.compareAndSet(slot, bytes, null))
+                        break;
+                    return;
+                }
+            }
+        }
+        discards.increment();
+        bytes.releaseLast();
+    }
+
+    // spread threads across the slots to reduce contention
+    private static int start(@NotNull AtomicReferenceArray<?> slots) {
+        return (int) (Thread.currentThread().getId() % slots.length());
+    }
+
+    /**
+     * @return the number of acquires
+     */
+    public long acquireCount() {
+        return acquires.sum();
+    }
+
+    /**
+     * @return the number of acquires which allocated a new Bytes
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of Bytes returned
+     */
+    public long returnCount() {
+        return returns.sum();
+    }
+
+    /**
+     * @return the number of Bytes returned which were released rather than retained
+     */
+    public long discardCount() {
+        return discards.sum();
+    }
+
+    /**
+     * @return the capacity of the Bytes currently held by the pool
+     */
+    public long retainedBytes() {
+        long total = 0;
+        for (AtomicReferenceArray<Bytes<Void>> slots : classes) {
+            for (int i = 0; i < slots.length(); i++) {
+                final Bytes<Void> bytes = slots.get(i);
+                if (bytes != null)
+                    total += bytes.realCapacity();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    protected void performClose() {
+        for (AtomicReferenceArray<Bytes<Void>> slots : classes) {
+            for (int i = 0; i < slots.length(); i++) {
+                final Bytes<Void> bytes = slots.getAndSet(i, null);
+                if (bytes != null)
+                    bytes.releaseLast();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SizeClassedBytesPool{" +
+                "acquires=" + acquireCount() +
+                ", misses=" + missCount() +
+                ", returns=" + returnCount() +
+                ", discards=" + discardCount() +
+                ", retainedBytes=" + retainedBytes() +
+                '}';
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.HexDumpBytes;
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import org.jetbrains.annotations.NotNull;
+
+import static net.openhft.chronicle.bytes.HexDumpBytes.MASK;
+
+/**
+ * An array of structs in a {@link BytesStore}, created by {@link StructLayout#arrayOf(BytesStore, long, long)}.
+ * <p>
+ * {@link #get(long)} moves one flyweight to the struct at an index, so no copy is made, and the flyweight returned
+ * is only valid until the next call. This class is not thread safe, use one view per thread.
+ *
+ * @param <T> the interface of the struct
+ */
+@SuppressWarnings("rawtypes")
+public class StructArray<T> extends AbstractCloseable {
+    private final StructLayout<T> layout;
+    private final BytesStore bytesStore;
+    private final long offset;
+    private final long length;
+    private final StructReference reference;
+    private final T flyweight;
+    // a MappedBytes can change its BytesStore between structs
+    private final boolean fixedStore;
+
+    StructArray(@NotNull StructLayout<T> layout, @NotNull BytesStore bytesStore, @NonNegative long offset, @NonNegative long length)
+            throws IllegalArgumentException {
+        if (bytesStore instanceof HexDumpBytes) {
+            offset &= MASK;
+        }
+        if (offset < 0 || length < 0 || offset + length * layout.size() > bytesStore.capacity())
+            throw new IllegalArgumentException("Unable to fit " + length + " structs of " + layout.size() + " bytes at " + offset + " in a capacity of " + bytesStore.capacity());
+        this.layout = layout;
+        this.bytesStore = bytesStore;
+        this.offset = offset;
+        this.length = length;
+        this.reference = new StructReference(layout);
+        this.flyweight = layout.newInstance(reference);
+        this.fixedStore = !(bytesStore instanceof MappedBytes);
+        if (fixedStore && length > 0)
+            reference.bytesStore(bytesStore, offset, layout.size());
+    }
+
+    /**
+     * @param index of the struct
+     * @return the flyweight, moved to the struct at this index
+     * @throws IndexOutOfBoundsException if the index is not in the array
+     */
+    @NotNull
+    public T get(@NonNegative long index)
+            throws IndexOutOfBoundsException, IllegalStateException {
+        throwExceptionIfClosed();
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index " + index + " is not in an array of " + length);
+        final long position = offset + index * layout.size();
+        if (fixedStore)
+            reference.moveTo(position);
+        else
+            reference.bytesStore(bytesStore, position, layout.size());
+        return flyweight;
+    }
+
+    /**
+     * @return the number of structs
+     */
+    public long length() {
+        return length;
+    }
+
+    @NotNull
+    public StructLayout<T> layout() {
+        return layout;
+    }
+
+    @Override
+    protected void performClose() {
+        reference.close();
+    }
+}
@@ -0,0 +1,685 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Byteable;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.ClassLocal;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.Closeable;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * The layout of a struct of primitive fields described by an interface of getters and setters, such as
+ * {@code double getPrice()} and {@code void setPrice(double)}, and flyweights which read and write the fields in place
+ * in a {@link BytesStore}.
+ * <p>
+ * As for {@link LongReference}, a property {@code X} of type int or long can also have {@code getVolatileX()},
+ * {@code setVolatileX(v)}, {@code setOrderedX(v)}, {@code compareAndSwapX(expected, value)} and {@code addX(delta)}.
+ * Volatile and ordered access is also supported for the other types other than boolean and char.
+ * <p>
+ * These prefixes are matched before get, is and set, so a property can't start with Volatile or Ordered, e.g.
+ * {@code setOrderedQty(long)} is an ordered write of {@code qty}. A method such as {@code addX(long)} is always an
+ * add to {@code x}. A layout which also declares a plain property with the other reading e.g. {@code getOrderedQty()}
+ * is rejected as ambiguous.
+ * <p>
+ * Fields are laid out largest first, so each is aligned to its size within the struct, and the size is padded to a
+ * multiple of the largest field so this also holds in an array of structs.
+ * <p>
+ * The flyweight from {@link #newInstance()} is a convenience, as a {@link Proxy} it boxes arguments and return values
+ * on every call. On a critical path use a typed field handle such as {@link #longField(String)} instead, which
+ * doesn't allocate e.g. {@code layout.longField("price").getValue(bytesStore, offset)}
+ *
+ * @param <T> the interface of the struct
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class StructLayout<T> {
+    private static final ClassLocal<StructLayout> LAYOUTS = ClassLocal.withInitial(StructLayout::new);
+
+    private final Class<T> type;
+    private final Map<Method, Accessor> accessors = new HashMap<>();
+    private final Map<String, Long> offsets = new LinkedHashMap<>();
+    private final Map<String, Class<?>> fieldTypes = new HashMap<>();
+    private final Map<String, Accessor> getters = new LinkedHashMap<>();
+    private final int size;
+
+    private StructLayout(@NotNull Class<T> type) {
+        if (!type.isInterface())
+            throw new IllegalArgumentException(type + " must be an interface");
+        this.type = type;
+
+        final Map<String, Class<?>> properties = new TreeMap<>();
+        final Map<Method, Kind> kinds = new LinkedHashMap<>();
+        for (Method method : type.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers())
+                    || method.getDeclaringClass().isAssignableFrom(Byteable.class)
+                    || method.getDeclaringClass().isAssignableFrom(Closeable.class))
+                continue;
+            final Kind kind = Kind.of(method);
+            if (kind == null)
+                throw new IllegalArgumentException("Unable to map " + method + " to a field");
+            final String name = kind.propertyName(method);
+            final Class<?> fieldType = kind.fieldType(method);
+            if (!fieldType.isPrimitive() || fieldType == void.class)
+                throw new IllegalArgumentException("The field " + name + " of " + type.getName() + " must be a primitive, not " + fieldType);
+            if (method.getReturnType() != kind.returnType(fieldType))
+                throw new IllegalArgumentException(method + " must return " + kind.returnType(fieldType));
+            if (kind == Kind.CAS && method.getParameterTypes()[1] != fieldType)
+                throw new IllegalArgumentException(method + " must take two " + fieldType);
+            final Class<?> previous = properties.put(name, fieldType);
+            if (previous != null && previous != fieldType)
+                throw new IllegalArgumentException("The field " + name + " of " + type.getName() + " is both " + previous + " and " + fieldType);
+            kinds.put(method, kind);
+        }
+        checkNotAmbiguous(kinds);
+
+        // largest first, then by name, so each field is aligned
+        final List<Map.Entry<String, Class<?>>> fields = new ArrayList<>(properties.entrySet());
+        fields.sort(Comparator.comparingInt((Map.Entry<String, Class<?>> e) -> -Memory.sizeOf(e.getValue())));
+        long offset = 0;
+        int largest = 1;
+        for (Map.Entry<String, Class<?>> field : fields) {
+            final int fieldSize = Memory.sizeOf(field.getValue());
+            offsets.put(field.getKey(), offset);
+            fieldTypes.put(field.getKey(), field.getValue());
+            getters.put(field.getKey(), new Accessor(Kind.GET, field.getValue(), offset));
+            offset += fieldSize;
+            largest = Math.max(largest, fieldSize);
+        }
+        this.size = (int) ((offset + largest - 1) / largest * largest);
+
+        for (Map.Entry<Method, Kind> entry : kinds.entrySet()) {
+            final Kind kind = entry.getValue();
+            final String name = kind.propertyName(entry.getKey());
+            accessors.put(entry.getKey(), new Accessor(kind, properties.get(name), offsets.get(name)));
+        }
+    }
+
+    private void checkNotAmbiguous(Map<Method, Kind> kinds)
+            throws IllegalArgumentException {
+        final Set<String> plain = new HashSet<>();
+        for (Map.Entry<Method, Kind> entry : kinds.entrySet()) {
+            final Kind kind = entry.getValue();
+            if (kind == Kind.GET || kind == Kind.IS || kind == Kind.SET)
+                plain.add(kind.propertyName(entry.getKey()));
+        }
+        for (Map.Entry<Method, Kind> entry : kinds.entrySet()) {
+            final Method method = entry.getKey();
+            // e.g. setOrderedQty could also be a setter of orderedQty
+            final Kind plainKind = method.getParameterCount() == 0 ? Kind.GET : Kind.SET;
+            if (plainKind == entry.getValue() || !method.getName().startsWith(plainKind.prefix))
+                continue;
+            final String name = plainKind.propertyName(method);
+            if (plain.contains(name))
+                throw new IllegalArgumentException(method + " of " + type.getName() + " is ambiguous as there is also a property " + name);
+        }
+    }
+
+    /**
+     * @param type the interface of the struct
+     * @return the layout for this interface, which is cached
+     */
+    @NotNull
+    public static <T> StructLayout<T> of(@NotNull Class<T> type)
+            throws IllegalArgumentException {
+        return LAYOUTS.get(type);
+    }
+
+    @NotNull
+    public Class<T> type() {
+        return type;
+    }
+
+    /**
+     * @return the bytes used by each struct, including padding
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param name of the field
+     * @return the offset of the field in the struct
+     */
+    public long offsetOf(@NotNull String name) {
+        final Long offset = offsets.get(name);
+        if (offset == null)
+            throw new IllegalArgumentException("No field " + name + " in " + type.getName());
+        return offset;
+    }
+
+    /**
+     * @param name of a long field
+     * @return a handle to access the field without allocating
+     * @throws IllegalArgumentException if there is no long field with this name
+     */
+    @NotNull
+    public LongField longField(@NotNull String name)
+            throws IllegalArgumentException {
+        return new LongField(offsetOf(name, long.class));
+    }
+
+    /**
+     * @param name of an int field
+     * @return a handle to access the field without allocating
+     * @throws IllegalArgumentException if there is no int field with this name
+     */
+    @NotNull
+    public IntField intField(@NotNull String name)
+            throws IllegalArgumentException {
+        return new IntField(offsetOf(name, int.class));
+    }
+
+    /**
+     * @param name of a double field
+     * @return a handle to access the field without allocating
+     * @throws IllegalArgumentException if there is no double field with this name
+     */
+    @NotNull
+    public DoubleField doubleField(@NotNull String name)
+            throws IllegalArgumentException {
+        return new DoubleField(offsetOf(name, double.class));
+    }
+
+    /**
+     * @param name of a float field
+     * @return a handle to access the field without allocating
+     * @throws IllegalArgumentException if there is no float field with this name
+     */
+    @NotNull
+    public FloatField floatField(@NotNull String name)
+            throws IllegalArgumentException {
+        return new FloatField(offsetOf(name, float.class));
+    }
+
+    /**
+     * @param name of a short field
+     * @return a handle to access the field without allocating
+     * @throws IllegalArgumentException if there is no short field with this name
+     */
+    @NotNull
+    public ShortField shortField(@NotNull String name)
+            throws IllegalArgumentException {
+        return new ShortField(offsetOf(name, short.class));
+    }
+
+    /**
+     * @param name of a char field
+     * @return a handle to access the field without allocating
+     * @throws IllegalArgumentException if there is no char field with this name
+     */
+    @NotNull
+    public CharField charField(@NotNull String name)
+            throws IllegalArgumentException {
+        return new CharField(offsetOf(name, char.class));
+    }
+
+    /**
+     * @param name of a byte field
+     * @return a handle to access the field without allocating
+     * @throws IllegalArgumentException if there is no byte field with this name
+     */
+    @NotNull
+    public ByteField byteField(@NotNull String name)
+            throws IllegalArgumentException {
+        return new ByteField(offsetOf(name, byte.class));
+    }
+
+    /**
+     * @param name of a boolean field
+     * @return a handle to access the field without allocating
+     * @throws IllegalArgumentException if there is no boolean field with this name
+     */
+    @NotNull
+    public BooleanField booleanField(@NotNull String name)
+            throws IllegalArgumentException {
+        return new BooleanField(offsetOf(name, boolean.class));
+    }
+
+    private long offsetOf(String name, Class<?> fieldType) {
+        final long offset = offsetOf(name);
+        if (fieldTypes.get(name) != fieldType)
+            throw new IllegalArgumentException("The field " + name + " of " + type.getName() + " is " + fieldTypes.get(name) + ", not " + fieldType);
+        return offset;
+    }
+
+    /**
+     * Create a flyweight which also implements {@link Byteable} and {@link Closeable}. It must be given a
+     * {@link Byteable#bytesStore(BytesStore, long, long)} of {@link #size()} bytes before its fields are used.
+     *
+     * @return a new flyweight
+     */
+    @NotNull
+    public T newInstance() {
+        return newInstance(new StructReference(this));
+    }
+
+    T newInstance(@NotNull StructReference reference) {
+        final Set<Class> interfaces = new LinkedHashSet<>();
+        interfaces.add(type);
+        interfaces.add(Byteable.class);
+        interfaces.add(Closeable.class);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), interfaces.toArray(new Class[0]), reference);
+    }
+
+    /**
+     * A view of an array of structs starting at the offset given.
+     *
+     * @param bytesStore holding the structs
+     * @param offset     of the first struct
+     * @param length     the number of structs
+     * @return a view which reuses one flyweight
+     */
+    @NotNull
+    public StructArray<T> arrayOf(@NotNull BytesStore bytesStore, @NonNegative long offset, @NonNegative long length)
+            throws IllegalArgumentException {
+        return new StructArray<>(this, bytesStore, offset, length);
+    }
+
+    Accessor accessor(Method method) {
+        return accessors.get(method);
+    }
+
+    @NotNull
+    String toString(BytesStore bytes, long offset) {
+        final StringBuilder sb = new StringBuilder(type.getSimpleName()).append('{');
+        String sep = "";
+        for (Map.Entry<String, Accessor> entry : getters.entrySet()) {
+            sb.append(sep).append(entry.getKey()).append('=').append(entry.getValue().invoke(bytes, offset, null));
+            sep = ", ";
+        }
+        return sb.append('}').toString();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "StructLayout{" +
+                "type=" + type.getName() +
+                ", size=" + size +
+                ", offsets=" + offsets +
+                '}';
+    }
+
+    enum Kind {
+        GET_VOLATILE("getVolatile", 0),
+        SET_VOLATILE("setVolatile", 1),
+        SET_ORDERED("setOrdered", 1),
+        CAS("compareAndSwap", 2),
+        ADD("add", 1),
+        GET("get", 0),
+        IS("is", 0),
+        SET("set", 1);
+
+        private final String prefix;
+        private final int parameters;
+
+        Kind(String prefix, int parameters) {
+            this.prefix = prefix;
+            this.parameters = parameters;
+        }
+
+        static Kind of(Method method) {
+            final String name = method.getName();
+            for (Kind kind : values()) {
+                if (name.length() > kind.prefix.length()
+                        && name.startsWith(kind.prefix)
+                        && Character.isUpperCase(name.charAt(kind.prefix.length()))
+                        && method.getParameterCount() == kind.parameters)
+                    return kind;
+            }
+            return null;
+        }
+
+        String propertyName(Method method) {
+            final String name = method.getName().substring(prefix.length());
+            return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+        }
+
+        Class<?> fieldType(Method method) {
+            return parameters == 0 ? method.getReturnType() : method.getParameterTypes()[0];
+        }
+
+        Class<?> returnType(Class<?> fieldType) {
+            switch (this) {
+                case CAS:
+                    return boolean.class;
+                case ADD:
+                    return fieldType;
+                default:
+                    return parameters == 0 ? fieldType : void.class;
+            }
+        }
+    }
+
+    /**
+     * A handle to a field of a struct, the offset passed to each method is that of the struct.
+     */
+    abstract static class Field {
+        protected final long offset;
+
+        Field(long offset) {
+            this.offset = offset;
+        }
+
+        /**
+         * @return the offset of the field in the struct
+         */
+        public long offset() {
+            return offset;
+        }
+    }
+
+    public static final class LongField extends Field {
+        LongField(long offset) {
+            super(offset);
+        }
+
+        public long getValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readLong(base + offset);
+        }
+
+        public void setValue(@NotNull BytesStore bs, @NonNegative long base, long value) {
+            bs.writeLong(base + offset, value);
+        }
+
+        public long getVolatileValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readVolatileLong(base + offset);
+        }
+
+        public void setOrderedValue(@NotNull BytesStore bs, @NonNegative long base, long value) {
+            bs.writeOrderedLong(base + offset, value);
+        }
+
+        public boolean compareAndSwapValue(@NotNull BytesStore bs, @NonNegative long base, long expected, long value) {
+            return bs.compareAndSwapLong(base + offset, expected, value);
+        }
+
+        public long addValue(@NotNull BytesStore bs, @NonNegative long base, long delta) {
+            return bs.addAndGetLong(base + offset, delta);
+        }
+    }
+
+    public static final class IntField extends Field {
+        IntField(long offset) {
+            super(offset);
+        }
+
+        public int getValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readInt(base + offset);
+        }
+
+        public void setValue(@NotNull BytesStore bs, @NonNegative long base, int value) {
+            bs.writeInt(base + offset, value);
+        }
+
+        public int getVolatileValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readVolatileInt(base + offset);
+        }
+
+        public void setOrderedValue(@NotNull BytesStore bs, @NonNegative long base, int value) {
+            bs.writeOrderedInt(base + offset, value);
+        }
+
+        public boolean compareAndSwapValue(@NotNull BytesStore bs, @NonNegative long base, int expected, int value) {
+            return bs.compareAndSwapInt(base + offset, expected, value);
+        }
+
+        public int addValue(@NotNull BytesStore bs, @NonNegative long base, int delta) {
+            return bs.addAndGetInt(base + offset, delta);
+        }
+    }
+
+    public static final class DoubleField extends Field {
+        DoubleField(long offset) {
+            super(offset);
+        }
+
+        public double getValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readDouble(base + offset);
+        }
+
+        public void setValue(@NotNull BytesStore bs, @NonNegative long base, double value) {
+            bs.writeDouble(base + offset, value);
+        }
+
+        public double getVolatileValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return Double.longBitsToDouble(bs.readVolatileLong(base + offset));
+        }
+
+        public void setOrderedValue(@NotNull BytesStore bs, @NonNegative long base, double value) {
+            bs.writeOrderedLong(base + offset, Double.doubleToRawLongBits(value));
+        }
+    }
+
+    public static final class FloatField extends Field {
+        FloatField(long offset) {
+            super(offset);
+        }
+
+        public float getValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readFloat(base + offset);
+        }
+
+        public void setValue(@NotNull BytesStore bs, @NonNegative long base, float value) {
+            bs.writeFloat(base + offset, value);
+        }
+
+        public float getVolatileValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return Float.intBitsToFloat(bs.readVolatileInt(base + offset));
+        }
+
+        public void setOrderedValue(@NotNull BytesStore bs, @NonNegative long base, float value) {
+            bs.writeOrderedInt(base + offset, Float.floatToRawIntBits(value));
+        }
+    }
+
+    public static final class ShortField extends Field {
+        ShortField(long offset) {
+            super(offset);
+        }
+
+        public short getValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readShort(base + offset);
+        }
+
+        public void setValue(@NotNull BytesStore bs, @NonNegative long base, short value) {
+            bs.writeShort(base + offset, value);
+        }
+    }
+
+    public static final class CharField extends Field {
+        CharField(long offset) {
+            super(offset);
+        }
+
+        public char getValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return (char) bs.readUnsignedShort(base + offset);
+        }
+
+        public void setValue(@NotNull BytesStore bs, @NonNegative long base, char value) {
+            bs.writeUnsignedShort(base + offset, value);
+        }
+    }
+
+    public static final class ByteField extends Field {
+        ByteField(long offset) {
+            super(offset);
+        }
+
+        public byte getValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readByte(base + offset);
+        }
+
+        public void setValue(@NotNull BytesStore bs, @NonNegative long base, byte value) {
+            bs.writeByte(base + offset, value);
+        }
+    }
+
+    public static final class BooleanField extends Field {
+        BooleanField(long offset) {
+            super(offset);
+        }
+
+        public boolean getValue(@NotNull BytesStore bs, @NonNegative long base) {
+            return bs.readBoolean(base + offset);
+        }
+
+        public void setValue(@NotNull BytesStore bs, @NonNegative long base, boolean value) {
+            bs.writeBoolean(base + offset, value);
+        }
+    }
+
+    static final class Accessor {
+        private final Kind kind;
+        private final Class<?> type;
+        private final long offset;
+
+        Accessor(Kind kind, Class<?> type, long offset) {
+            this.kind = kind;
+            this.type = type;
+            this.offset = offset;
+            // check the combination is supported
+            if (kind != Kind.GET && kind != Kind.IS && kind != Kind.SET) {
+                final boolean intOrLong = type == int.class || type == long.class;
+                final boolean supported = kind == Kind.CAS || kind == Kind.ADD
+                        ? intOrLong
+                        : type != boolean.class && type != char.class;
+                if (!supported)
+                    throw new IllegalArgumentException(kind + " is not supported for " + type);
+            }
+        }
+
+        Object invoke(BytesStore bs, long base, Object[] args)
+                throws IllegalStateException {
+            final long offset = base + this.offset;
+            switch (kind) {
+                case GET:
+                case IS:
+                    return get(bs, offset);
+                case SET:
+                    set(bs, offset, args[0]);
+                    return null;
+                case GET_VOLATILE:
+                    return getVolatile(bs, offset);
+                case SET_VOLATILE:
+                    setVolatile(bs, offset, args[0]);
+                    return null;
+                case SET_ORDERED:
+                    setOrdered(bs, offset, args[0]);
+                    return null;
+                case CAS:
+                    return type == int.class
+                            ? bs.compareAndSwapInt(offset, (Integer) args[0], (Integer) args[1])
+                            : bs.compareAndSwapLong(offset, (Long) args[0], (Long) args[1]);
+                case ADD:
+                    return type == int.class
+                            ? (Object) bs.addAndGetInt(offset, (Integer) args[0])
+                            : (Object) bs.addAndGetLong(offset, (Long) args[0]);
+                default:
+                    throw new AssertionError(kind);
+            }
+        }
+
+        private Object get(BytesStore bs, long offset) {
+            if (type == long.class)
+                return bs.readLong(offset);
+            if (type == double.class)
+                return bs.readDouble(offset);
+            if (type == int.class)
+                return bs.readInt(offset);
+            if (type == float.class)
+                return bs.readFloat(offset);
+            if (type == short.class)
+                return bs.readShort(offset);
+            if (type == char.class)
+                return (char) bs.readUnsignedShort(offset);
+            if (type == byte.class)
+                return bs.readByte(offset);
+            return bs.readBoolean(offset);
+        }
+
+        private void set(BytesStore bs, long offset, Object value) {
+            if (type == long.class)
+                bs.writeLong(offset, (Long) value);
+            else if (type == double.class)
+                bs.writeDouble(offset, (Double) value);
+            else if (type == int.class)
+                bs.writeInt(offset, (Integer) value);
+            else if (type == float.class)
+                bs.writeFloat(offset, (Float) value);
+            else if (type == short.class)
+                bs.writeShort(offset, (Short) value);
+            else if (type == char.class)
+                bs.writeUnsignedShort(offset, (Character) value);
+            else if (type == byte.class)
+                bs.writeByte(offset, (Byte) value);
+            else
+                bs.writeBoolean(offset, (Boolean) value);
+        }
+
+        private Object getVolatile(BytesStore bs, long offset) {
+            if (type == long.class)
+                return bs.readVolatileLong(offset);
+            if (type == double.class)
+                return Double.longBitsToDouble(bs.readVolatileLong(offset));
+            if (type == int.class)
+                return bs.readVolatileInt(offset);
+            if (type == float.class)
+                return Float.intBitsToFloat(bs.readVolatileInt(offset));
+            if (type == short.class)
+                return bs.readVolatileShort(offset);
+            return bs.readVolatileByte(offset);
+        }
+
+        private void setVolatile(BytesStore bs, long offset, Object value) {
+            if (type == long.class)
+                bs.writeVolatileLong(offset, (Long) value);
+            else if (type == double.class)
+                bs.writeVolatileLong(offset, Double.doubleToRawLongBits((Double) value));
+            else if (type == int.class)
+                bs.writeVolatileInt(offset, (Integer) value);
+            else if (type == float.class)
+                bs.writeVolatileInt(offset, Float.floatToRawIntBits((Float) value));
+            else if (type == short.class)
+                bs.writeVolatileShort(offset, (Short) value);
+            else
+                bs.writeVolatileByte(offset, (Byte) value);
+        }
+
+        private void setOrdered(BytesStore bs, long offset, Object value) {
+            if (type == long.class)
+                bs.writeOrderedLong(offset, (Long) value);
+            else if (type == double.class)
+                bs.writeOrderedLong(offset, Double.doubleToRawLongBits((Double) value));
+            else if (type == int.class)
+                bs.writeOrderedInt(offset, (Integer) value);
+            else if (type == float.class)
+                bs.writeOrderedInt(offset, Float.floatToRawIntBits((Float) value));
+            else
+                // there is no ordered write smaller than an int
+                setVolatile(bs, offset, value);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.HexDumpBytes;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.BufferOverflowException;
+
+import static net.openhft.chronicle.bytes.HexDumpBytes.MASK;
+
+/**
+ * The handler behind a flyweight created by {@link StructLayout#newInstance()}, which reads and writes the fields
+ * in place at its offset.
+ */
+@SuppressWarnings("rawtypes")
+class StructReference extends AbstractReference implements InvocationHandler {
+    private final StructLayout<?> layout;
+
+    StructReference(@NotNull StructLayout<?> layout) {
+        this.layout = layout;
+    }
+
+    @Override
+    public void bytesStore(final @NotNull BytesStore bytes, @NonNegative long offset, @NonNegative final long length)
+            throws IllegalStateException, IllegalArgumentException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        if (length != maxSize())
+            throw new IllegalArgumentException("length " + length + " must be the size of the struct " + maxSize());
+
+        if (bytes instanceof HexDumpBytes) {
+            offset &= MASK;
+        }
+
+        super.bytesStore(bytes, offset, length);
+    }
+
+    /**
+     * Move to another struct in the same BytesStore
+     */
+    void moveTo(@NonNegative long offset) {
+        if (bytes instanceof HexDumpBytes) {
+            offset &= MASK;
+        }
+        this.offset = offset;
+    }
+
+    @Override
+    public long maxSize() {
+        return layout.size();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args)
+            throws Throwable {
+        final StructLayout.Accessor accessor = layout.accessor(method);
+        if (accessor != null) {
+            final BytesStore bs = bytes;
+            if (bs == null) {
+                throwExceptionIfClosed();
+                throw new IllegalStateException("No bytesStore set");
+            }
+            return accessor.invoke(bs, offset, args);
+        }
+        switch (method.getName()) {
+            case "toString":
+                if (args == null)
+                    return toString();
+                break;
+            case "hashCode":
+                if (args == null)
+                    return System.identityHashCode(proxy);
+                break;
+            case "equals":
+                if (args != null && args.length == 1)
+                    return proxy == args[0];
+                break;
+            default:
+                break;
+        }
+        if (method.getDeclaringClass().isInstance(this)) {
+            try {
+                return method.invoke(this, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        if (bytes == null) return "bytes is null";
+        try {
+            return layout.toString(bytes, offset);
+        } catch (Throwable e) {
+            return e.toString();
+        }
+    }
+}
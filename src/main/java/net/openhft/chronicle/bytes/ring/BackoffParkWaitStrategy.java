@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.annotation.NonNegative;
+
+import java.util.concurrent.locks.LockSupport;
+
+final class BackoffParkWaitStrategy implements WaitStrategy {
+    private final int spins;
+    private final long minParkNs;
+    private final long maxParkNs;
+    private int count;
+    private long parkNs;
+
+    BackoffParkWaitStrategy(@NonNegative int spins, @NonNegative long minParkNs, @NonNegative long maxParkNs) {
+        if (minParkNs < 1 || maxParkNs < minParkNs)
+            throw new IllegalArgumentException("Expected 0 < minParkNs <= maxParkNs, was " + minParkNs + " and " + maxParkNs);
+        this.spins = spins;
+        this.minParkNs = minParkNs;
+        this.maxParkNs = maxParkNs;
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+        parkNs = minParkNs;
+    }
+
+    @Override
+    public boolean idle() {
+        if (count < spins) {
+            count++;
+            Jvm.nanoPause();
+            return true;
+        }
+        LockSupport.parkNanos(parkNs);
+        parkNs = Math.min(parkNs * 2, maxParkNs);
+        return true;
+    }
+}
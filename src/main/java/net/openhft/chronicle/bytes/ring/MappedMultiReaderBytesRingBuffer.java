@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.bytes.MappedBytesStore;
+import net.openhft.chronicle.bytes.MappedFile;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.ReferenceOwner;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import static net.openhft.chronicle.bytes.ring.VanillaBytesRingBuffer.RECORD_ALIGNMENT;
+
+/**
+ * A {@link VanillaMultiReaderBytesRingBuffer} in a memory mapped file, so processes on the same host can exchange
+ * messages e.g. via a file in /dev/shm
+ * <p>
+ * The first process to open the file initialises the header, any other process attaches to it after checking the
+ * magic number, version, capacity and number of readers match. The read positions are kept in the file, so a
+ * restarted consumer which creates a reader with the same id continues from the last message it read. As producers
+ * are held back by the slowest reader which isn't stopped, {@link #offer} returns false until a reader catches up.
+ * Readers start from the beginning of a new file, so a consumer which attaches after the producer has started
+ * doesn't miss any messages.
+ */
+public class MappedMultiReaderBytesRingBuffer extends VanillaMultiReaderBytesRingBuffer {
+    @NotNull
+    private final MappedFile mappedFile;
+
+    private MappedMultiReaderBytesRingBuffer(@NotNull MappedFile mappedFile,
+                                             @NotNull MappedBytesStore bytesStore,
+                                             @NonNegative int numReaders) {
+        super(bytesStore, numReaders, true);
+        this.mappedFile = mappedFile;
+    }
+
+    /**
+     * Creates or attaches to a ring buffer in a file.
+     *
+     * @param file       to map
+     * @param capacity   of the data region, this is rounded up to a power of two
+     * @param numReaders the number of readers
+     * @return the ring buffer
+     * @throws IOException           if the file could not be mapped
+     * @throws IllegalStateException if the file holds a ring buffer with a different layout
+     */
+    @NotNull
+    public static MappedMultiReaderBytesRingBuffer of(@NotNull File file,
+                                                      @NonNegative long capacity,
+                                                      @NonNegative int numReaders)
+            throws IOException, IllegalStateException {
+        checkExistingLayout(file, capacity, numReaders);
+        final MappedFile mappedFile = MappedFile.ofSingle(file, sizeFor(capacity, numReaders), false);
+        boolean ok = false;
+        final ReferenceOwner temp = ReferenceOwner.temporary("of");
+        try {
+            final MappedBytesStore bytesStore = mappedFile.acquireByteStore(temp, 0);
+            try {
+                final MappedMultiReaderBytesRingBuffer ring = new MappedMultiReaderBytesRingBuffer(mappedFile, bytesStore, numReaders);
+                ok = true;
+                return ring;
+            } finally {
+                bytesStore.release(temp);
+            }
+        } finally {
+            if (!ok)
+                mappedFile.close();
+        }
+    }
+
+    /**
+     * Check the header of an existing file before it is mapped, as mapping it at a different size would grow it.
+     */
+    private static void checkExistingLayout(@NotNull File file, @NonNegative long capacity, @NonNegative int numReaders)
+            throws IOException, IllegalStateException {
+        final int headerLength = (int) NUM_READERS_OFFSET + Integer.BYTES;
+        if (file.length() < headerLength)
+            return;
+        final ByteBuffer header = ByteBuffer.allocate(headerLength).order(ByteOrder.nativeOrder());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final FileChannel channel = raf.getChannel();
+            while (header.hasRemaining())
+                if (channel.read(header, header.position()) < 0)
+                    return;
+        }
+        // a file being initialised is checked once mapped
+        if (header.getInt((int) MAGIC_OFFSET) != MAGIC || header.getInt((int) VERSION_OFFSET) != VERSION)
+            return;
+        checkLayout(header.getLong((int) CAPACITY_OFFSET), header.getInt((int) NUM_READERS_OFFSET),
+                Maths.nextPower2(capacity, RECORD_ALIGNMENT), numReaders);
+    }
+
+    @NotNull
+    public MappedFile mappedFile() {
+        return mappedFile;
+    }
+
+    /**
+     * Closing a reader doesn't stop it, so its read position is retained for the next reader created with the same id.
+     */
+    @Override
+    protected void readerClosed(@NotNull RingBufferReader reader) {
+        // the read position is retained, call stop() to no longer hold back producers
+    }
+
+    @Override
+    protected void performClose() {
+        super.performClose();
+        mappedFile.close();
+    }
+}
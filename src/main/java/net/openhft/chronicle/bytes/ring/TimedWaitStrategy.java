@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+final class TimedWaitStrategy implements WaitStrategy {
+    @NotNull
+    private final WaitStrategy waitStrategy;
+    private final long timeoutNs;
+    private long startNs;
+
+    TimedWaitStrategy(@NotNull WaitStrategy waitStrategy, @NonNegative long timeoutNs) {
+        this.waitStrategy = waitStrategy;
+        this.timeoutNs = timeoutNs;
+    }
+
+    @Override
+    public void reset() {
+        startNs = System.nanoTime();
+        waitStrategy.reset();
+    }
+
+    @Override
+    public boolean idle() {
+        if (System.nanoTime() - startNs >= timeoutNs)
+            return false;
+        return waitStrategy.idle();
+    }
+}
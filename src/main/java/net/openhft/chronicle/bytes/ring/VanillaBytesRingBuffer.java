@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.bytes.BytesRingBuffer;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.RingBufferReaderStats;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single producer, single consumer ring buffer laid over a {@link BytesStore}.
+ * <p>
+ * The store starts with a header holding the write and read positions, each on its own cache line, followed by a
+ * data region whose size is a power of two. Each record is a 4-byte length followed by the payload, padded to
+ * 8 bytes so the length never straddles the end of the data region. The payload may wrap around.
+ * <p>
+ * The positions only ever increase; the producer publishes a record with ordered writes of the length and then
+ * the write position, and the consumer frees space with an ordered write of the read position. Neither side
+ * allocates or locks.
+ * <p>
+ * Only one thread may call {@link #offer(BytesStore)} and only one thread may call {@link #read(BytesOut)} at a time.
+ * The statistics are plain fields and are approximate when read from another thread.
+ */
+@SuppressWarnings("rawtypes")
+public class VanillaBytesRingBuffer extends AbstractCloseable implements BytesRingBuffer, RingBufferReaderStats {
+    static final int CACHE_LINE_SIZE = 64;
+    static final int LENGTH_SIZE = 4;
+    static final int RECORD_ALIGNMENT = 8;
+    static final long WRITE_POSITION = 0;
+    static final long READ_POSITION = CACHE_LINE_SIZE;
+    public static final long HEADER_SIZE = 2L * CACHE_LINE_SIZE;
+
+    @NotNull
+    private final BytesStore<?, ?> bytesStore;
+    private final long writePositionOffset;
+    private final long readPositionOffset;
+    private final long dataOffset;
+    private final long capacity;
+    private final long mask;
+    private final List<RingBufferReaderStats> readers = Collections.singletonList(this);
+
+    // producer side
+    private long cachedReadPosition;
+    private long writeCount;
+    private long missedWriteCount;
+
+    // consumer side
+    private long cachedWritePosition;
+    private long readCount;
+    private long missedReadCount;
+    private long minNumberOfWriteBytesRemaining = Long.MAX_VALUE;
+
+    public VanillaBytesRingBuffer(@NotNull BytesStore<?, ?> bytesStore) {
+        this.bytesStore = bytesStore;
+        final long start = bytesStore.start();
+        this.writePositionOffset = start + WRITE_POSITION;
+        this.readPositionOffset = start + READ_POSITION;
+        this.dataOffset = start + HEADER_SIZE;
+        this.capacity = capacityFor(bytesStore.realCapacity() - HEADER_SIZE);
+        this.mask = capacity - 1;
+        bytesStore.reserve(this);
+
+        bytesStore.writeLong(writePositionOffset, 0L);
+        bytesStore.writeOrderedLong(readPositionOffset, 0L);
+
+        // used by a producer and a consumer thread.
+        singleThreadedCheckDisabled(true);
+    }
+
+    /**
+     * @param capacity of the data region required
+     * @return the size of the {@link BytesStore} needed for a ring buffer of at least this capacity
+     */
+    public static long sizeFor(@NonNegative long capacity) {
+        return HEADER_SIZE + Maths.nextPower2(capacity, RECORD_ALIGNMENT);
+    }
+
+    static long capacityFor(long available) {
+        if (available < RECORD_ALIGNMENT)
+            throw new IllegalArgumentException("The BytesStore is too small for a ring buffer, it needs at least " + (HEADER_SIZE + RECORD_ALIGNMENT) + " bytes");
+        return Long.highestOneBit(available);
+    }
+
+    static long recordSize(long length) {
+        return (LENGTH_SIZE + length + RECORD_ALIGNMENT - 1) & -RECORD_ALIGNMENT;
+    }
+
+    @Override
+    public boolean offer(@NotNull BytesStore bytes0)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        final long length = bytes0.readRemaining();
+        final long recordSize = recordSize(length);
+        if (recordSize > capacity || length > Integer.MAX_VALUE)
+            throw new DecoratedBufferOverflowException("Cannot offer " + length + " bytes to a ring buffer with a capacity of " + capacity);
+
+        final long writePosition = bytesStore.readLong(writePositionOffset);
+        if (writePosition + recordSize - cachedReadPosition > capacity) {
+            cachedReadPosition = bytesStore.readVolatileLong(readPositionOffset);
+            if (writePosition + recordSize - cachedReadPosition > capacity) {
+                missedWriteCount++;
+                return false;
+            }
+        }
+
+        final long index = writePosition & mask;
+        final long payloadIndex = (index + LENGTH_SIZE) & mask;
+        final long firstLength = Math.min(length, capacity - payloadIndex);
+        bytesStore.write(dataOffset + payloadIndex, bytes0, bytes0.readPosition(), firstLength);
+        if (firstLength < length)
+            bytesStore.write(dataOffset, bytes0, bytes0.readPosition() + firstLength, length - firstLength);
+
+        bytesStore.writeOrderedInt(dataOffset + index, (int) length);
+        bytesStore.writeOrderedLong(writePositionOffset, writePosition + recordSize);
+        writeCount++;
+        return true;
+    }
+
+    @Override
+    public boolean read(@NotNull BytesOut<?> using)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        final long readPosition = bytesStore.readLong(readPositionOffset);
+        if (readPosition >= cachedWritePosition) {
+            cachedWritePosition = bytesStore.readVolatileLong(writePositionOffset);
+            if (readPosition >= cachedWritePosition) {
+                missedReadCount++;
+                return false;
+            }
+        }
+
+        final long writeBytesRemaining = capacity - (cachedWritePosition - readPosition);
+        if (writeBytesRemaining < minNumberOfWriteBytesRemaining)
+            minNumberOfWriteBytesRemaining = writeBytesRemaining;
+
+        final long index = readPosition & mask;
+        final int length = bytesStore.readVolatileInt(dataOffset + index);
+        if (using.writeRemaining() < length)
+            throw new DecoratedBufferOverflowException("Cannot read " + length + " bytes as only " + using.writeRemaining() + " bytes remain");
+
+        final long payloadIndex = (index + LENGTH_SIZE) & mask;
+        final long firstLength = Math.min(length, capacity - payloadIndex);
+        using.write(bytesStore, dataOffset + payloadIndex, firstLength);
+        if (firstLength < length)
+            using.write(bytesStore, dataOffset, length - firstLength);
+
+        bytesStore.writeOrderedLong(readPositionOffset, readPosition + recordSize(length));
+        readCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        bytesStore.writeOrderedLong(readPositionOffset, bytesStore.readVolatileLong(writePositionOffset));
+    }
+
+    @Override
+    public long readRemaining() {
+        final long readPosition = bytesStore.readVolatileLong(readPositionOffset);
+        return bytesStore.readVolatileLong(writePositionOffset) - readPosition;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return readRemaining() == 0;
+    }
+
+    @Override
+    public BytesStore bytesStore() {
+        return bytesStore;
+    }
+
+    @Override
+    public long minNumberOfWriteBytesRemaining() {
+        final long min = minNumberOfWriteBytesRemaining;
+        minNumberOfWriteBytesRemaining = Long.MAX_VALUE;
+        return min;
+    }
+
+    @Override
+    public long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getAndClearWriteCount() {
+        final long count = writeCount;
+        writeCount = 0;
+        return count;
+    }
+
+    @Override
+    public long getAndClearMissedWriteCount() {
+        final long count = missedWriteCount;
+        missedWriteCount = 0;
+        return count;
+    }
+
+    @Override
+    public long getAndClearContentionCount() {
+        // a single producer never contends
+        return 0;
+    }
+
+    @Override
+    public List<RingBufferReaderStats> readers() {
+        return readers;
+    }
+
+    @Override
+    public long getAndClearReadCount() {
+        final long count = readCount;
+        readCount = 0;
+        return count;
+    }
+
+    @Override
+    public long getAndClearMissedReadCount() {
+        final long count = missedReadCount;
+        missedReadCount = 0;
+        return count;
+    }
+
+    @Override
+    public long behind() {
+        return readRemaining();
+    }
+
+    @Override
+    protected void performClose() {
+        bytesStore.release(this);
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "VanillaBytesRingBuffer{" +
+                "capacity=" + capacity +
+                ", writePosition=" + bytesStore.readVolatileLong(writePositionOffset) +
+                ", readPosition=" + bytesStore.readVolatileLong(readPositionOffset) +
+                '}';
+    }
+}
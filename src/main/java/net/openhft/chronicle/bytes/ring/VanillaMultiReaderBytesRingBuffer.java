@@ -0,0 +1,582 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.MultiReaderBytesRingBuffer;
+import net.openhft.chronicle.bytes.ReadBytesMarshallable;
+import net.openhft.chronicle.bytes.RingBufferReader;
+import net.openhft.chronicle.bytes.RingBufferReaderStats;
+import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import net.openhft.chronicle.core.io.Closeable;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.openhft.chronicle.bytes.ring.VanillaBytesRingBuffer.*;
+
+/**
+ * A multi producer, multi reader ring buffer laid over a {@link BytesStore}.
+ * <p>
+ * The header starts with a magic number, a version, the capacity and the number of readers so the layout can be
+ * checked when attaching to an existing ring buffer e.g. in a shared memory file, see
+ * {@link MappedMultiReaderBytesRingBuffer}. This is followed by a claim position, a publish position and one cache
+ * line per reader with its read position and whether it is stopped.
+ * <p>
+ * Producers claim space by a {@code compareAndSwapLong} on the claim position, write the record, and then publish
+ * it once all earlier claims have been published, so readers only need to read the publish position. A record
+ * never wraps around the end of the data region, instead the remainder is claimed as padding, so readers can
+ * always see a record in place.
+ * <p>
+ * Each reader has its own read position. Producers cannot overwrite data until every reader which is not stopped
+ * has read it, so the slowest reader determines the space available. Every reader starts at the beginning and is
+ * not stopped, so messages offered before a reader is created are kept for it. A reader which won't be used should
+ * be stopped so it doesn't hold back producers. Closing a reader stops it, see
+ * {@link #readerClosed(RingBufferReader)}.
+ */
+@SuppressWarnings("rawtypes")
+public class VanillaMultiReaderBytesRingBuffer extends AbstractCloseable implements MultiReaderBytesRingBuffer {
+    static final int PADDING = -1;
+    // "RING" in little endian
+    static final int MAGIC = 0x474E4952;
+    static final int INITIALISING = -1;
+    static final int VERSION = 1;
+    static final long MAGIC_OFFSET = 0;
+    static final long VERSION_OFFSET = 4;
+    static final long CAPACITY_OFFSET = 8;
+    static final long NUM_READERS_OFFSET = 16;
+    static final long CLAIM_POSITION = CACHE_LINE_SIZE;
+    static final long PUBLISH_POSITION = 2L * CACHE_LINE_SIZE;
+    static final long READERS_START = 3L * CACHE_LINE_SIZE;
+    static final long READER_STOPPED = 8;
+    static final long INITIALISE_TIMEOUT_MS = 10_000;
+
+    @NotNull
+    private final BytesStore<?, ?> bytesStore;
+    private final long start;
+    private final long claimOffset;
+    private final long publishOffset;
+    private final long dataOffset;
+    private final long capacity;
+    private final long mask;
+    @NotNull
+    private final Reader[] readers;
+    private final List<RingBufferReaderStats> readerStats;
+    private Reader defaultReader;
+
+    // shared by producers, these only need to be approximate
+    private long cachedMinReadPosition;
+    private long writeCount;
+    private long missedWriteCount;
+    private long contentionCount;
+    // also updated by readers
+    private long minNumberOfWriteBytesRemaining = Long.MAX_VALUE;
+
+    public VanillaMultiReaderBytesRingBuffer(@NotNull BytesStore<?, ?> bytesStore, @NonNegative int numReaders) {
+        this(bytesStore, numReaders, false);
+    }
+
+    /**
+     * @param bytesStore to lay the ring buffer over
+     * @param numReaders the number of readers
+     * @param attach     whether to attach to a ring buffer already in the {@code bytesStore} rather than resetting it
+     * @throws IllegalStateException if attaching to a ring buffer with a different layout
+     */
+    protected VanillaMultiReaderBytesRingBuffer(@NotNull BytesStore<?, ?> bytesStore, @NonNegative int numReaders, boolean attach)
+            throws IllegalStateException {
+        if (numReaders < 1)
+            throw new IllegalArgumentException("numReaders must be at least 1, was " + numReaders);
+        this.bytesStore = bytesStore;
+        this.start = bytesStore.start();
+        this.claimOffset = start + CLAIM_POSITION;
+        this.publishOffset = start + PUBLISH_POSITION;
+        this.dataOffset = start + headerSize(numReaders);
+        this.capacity = capacityFor(bytesStore.realCapacity() - headerSize(numReaders));
+        this.mask = capacity - 1;
+        this.readers = new Reader[numReaders];
+        for (int i = 0; i < numReaders; i++)
+            readers[i] = newReader(i);
+        this.readerStats = Collections.unmodifiableList(Arrays.asList(readers));
+
+        if (!attach)
+            initialise();
+        else if (bytesStore.compareAndSwapInt(start + MAGIC_OFFSET, 0, INITIALISING))
+            initialise();
+        else
+            checkLayout();
+        bytesStore.reserve(this);
+
+        // used by many producer and reader threads.
+        singleThreadedCheckDisabled(true);
+    }
+
+    private Reader newReader(int id) {
+        return new Reader(start + READERS_START + (long) id * CACHE_LINE_SIZE);
+    }
+
+    private void initialise() {
+        bytesStore.writeInt(start + VERSION_OFFSET, VERSION);
+        bytesStore.writeLong(start + CAPACITY_OFFSET, capacity);
+        bytesStore.writeInt(start + NUM_READERS_OFFSET, readers.length);
+        bytesStore.writeLong(claimOffset, 0L);
+        bytesStore.writeLong(publishOffset, 0L);
+        for (Reader reader : readers) {
+            bytesStore.writeLong(reader.positionOffset, 0L);
+            bytesStore.writeLong(reader.positionOffset + READER_STOPPED, 0L);
+        }
+        bytesStore.writeOrderedInt(start + MAGIC_OFFSET, MAGIC);
+    }
+
+    private void checkLayout()
+            throws IllegalStateException {
+        final long timeoutMs = System.currentTimeMillis() + INITIALISE_TIMEOUT_MS;
+        int magic;
+        while ((magic = bytesStore.readVolatileInt(start + MAGIC_OFFSET)) == INITIALISING) {
+            if (System.currentTimeMillis() > timeoutMs)
+                throw new IllegalStateException("Timed out waiting for the ring buffer to be initialised");
+            Jvm.pause(1);
+        }
+        if (magic != MAGIC)
+            throw new IllegalStateException("Not a ring buffer, magic number was 0x" + Integer.toHexString(magic));
+        final int version = bytesStore.readInt(start + VERSION_OFFSET);
+        if (version != VERSION)
+            throw new IllegalStateException("Unsupported ring buffer version " + version + ", expected " + VERSION);
+        checkLayout(bytesStore.readLong(start + CAPACITY_OFFSET), bytesStore.readInt(start + NUM_READERS_OFFSET), capacity, readers.length);
+    }
+
+    static void checkLayout(long existingCapacity, int existingReaders, long capacity, int numReaders)
+            throws IllegalStateException {
+        if (existingCapacity != capacity || existingReaders != numReaders)
+            throw new IllegalStateException("Ring buffer has a capacity of " + existingCapacity + " and " + existingReaders +
+                    " readers, expected a capacity of " + capacity + " and " + numReaders + " readers");
+    }
+
+    static long headerSize(@NonNegative int numReaders) {
+        return READERS_START + (long) numReaders * CACHE_LINE_SIZE;
+    }
+
+    /**
+     * @param capacity   of the data region required
+     * @param numReaders the number of readers
+     * @return the size of the {@link BytesStore} needed for a ring buffer of at least this capacity
+     */
+    public static long sizeFor(@NonNegative long capacity, @NonNegative int numReaders) {
+        return headerSize(numReaders) + Maths.nextPower2(capacity, RECORD_ALIGNMENT);
+    }
+
+    /**
+     * @param id of the reader, from 0 to one less than the number of readers
+     * @throws IllegalArgumentException if there is no reader with this id
+     */
+    @NotNull
+    @Override
+    public RingBufferReader createReader(int id)
+            throws IllegalArgumentException {
+        throwExceptionIfClosed();
+        if (id < 0 || id >= readers.length)
+            throw new IllegalArgumentException("Reader id " + id + " must be from 0 to " + (readers.length - 1));
+
+        Reader reader = readers[id];
+        if (reader.isClosed())
+            reader = readers[id] = newReader(id);
+        if (reader.isStopped()) {
+            // start at the claim position as data before it might be overwritten by producers which ignored this reader
+            bytesStore.writeOrderedLong(reader.positionOffset, bytesStore.readVolatileLong(claimOffset));
+            bytesStore.writeOrderedLong(reader.positionOffset + READER_STOPPED, 0L);
+        }
+        return reader;
+    }
+
+    @Override
+    public boolean offer(@NotNull BytesStore bytes0)
+            throws IllegalStateException, BufferOverflowException {
+        throwExceptionIfClosed();
+
+        final long length = bytes0.readRemaining();
+        final long recordSize = recordSize(length);
+        if (recordSize > capacity || length > Integer.MAX_VALUE)
+            throw new DecoratedBufferOverflowException("Cannot offer " + length + " bytes to a ring buffer with a capacity of " + capacity);
+
+        for (; ; ) {
+            final long writePosition = bytesStore.readVolatileLong(claimOffset);
+            final long index = writePosition & mask;
+            final boolean padding = index + recordSize > capacity;
+            final long claimSize = padding ? capacity - index : recordSize;
+            if (!hasSpace(writePosition, claimSize)) {
+                missedWriteCount++;
+                return false;
+            }
+            if (!bytesStore.compareAndSwapLong(claimOffset, writePosition, writePosition + claimSize)) {
+                contentionCount++;
+                continue;
+            }
+
+            if (padding) {
+                bytesStore.writeOrderedInt(dataOffset + index, PADDING);
+                publish(writePosition, claimSize);
+                continue;
+            }
+
+            bytesStore.write(dataOffset + index + LENGTH_SIZE, bytes0, bytes0.readPosition(), length);
+            bytesStore.writeOrderedInt(dataOffset + index, (int) length);
+            publish(writePosition, claimSize);
+            writeCount++;
+            return true;
+        }
+    }
+
+    private boolean hasSpace(long writePosition, long claimSize) {
+        if (writePosition + claimSize - cachedMinReadPosition <= capacity)
+            return true;
+        final long minReadPosition = minReadPosition(writePosition);
+        cachedMinReadPosition = minReadPosition;
+
+        final long writeBytesRemaining = capacity - (writePosition - minReadPosition);
+        if (writeBytesRemaining < minNumberOfWriteBytesRemaining)
+            minNumberOfWriteBytesRemaining = writeBytesRemaining;
+        return writePosition + claimSize - minReadPosition <= capacity;
+    }
+
+    private long minReadPosition(long writePosition) {
+        long min = writePosition;
+        for (Reader reader : readers) {
+            if (reader.isStopped())
+                continue;
+            min = Math.min(min, bytesStore.readVolatileLong(reader.positionOffset));
+        }
+        return min;
+    }
+
+    /**
+     * Publishes claims in the order they were made so readers only need to check the publish position.
+     */
+    private void publish(long writePosition, long claimSize) {
+        if (bytesStore.readVolatileLong(publishOffset) != writePosition) {
+            contentionCount++;
+            while (bytesStore.readVolatileLong(publishOffset) != writePosition)
+                Jvm.nanoPause();
+        }
+        bytesStore.writeOrderedLong(publishOffset, writePosition + claimSize);
+    }
+
+    @NotNull
+    private Reader defaultReader() {
+        if (defaultReader == null)
+            defaultReader = (Reader) createReader();
+        return defaultReader;
+    }
+
+    @Override
+    public boolean read(@NotNull BytesOut<?> using)
+            throws IllegalStateException, BufferOverflowException {
+        return defaultReader().read(using);
+    }
+
+    @Override
+    public void clear() {
+        for (Reader reader : readers)
+            if (!reader.isStopped())
+                reader.toEnd();
+    }
+
+    /**
+     * @return the number of bytes the slowest reader has still to read
+     */
+    @Override
+    public long readRemaining() {
+        final long publishPosition = bytesStore.readVolatileLong(publishOffset);
+        return Math.max(0, publishPosition - minReadPosition(publishPosition));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return readRemaining() == 0;
+    }
+
+    @Override
+    public BytesStore bytesStore() {
+        return bytesStore;
+    }
+
+    @Override
+    public long minNumberOfWriteBytesRemaining() {
+        final long min = minNumberOfWriteBytesRemaining;
+        minNumberOfWriteBytesRemaining = Long.MAX_VALUE;
+        return min;
+    }
+
+    @Override
+    public long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getAndClearWriteCount() {
+        final long count = writeCount;
+        writeCount = 0;
+        return count;
+    }
+
+    @Override
+    public long getAndClearMissedWriteCount() {
+        final long count = missedWriteCount;
+        missedWriteCount = 0;
+        return count;
+    }
+
+    @Override
+    public long getAndClearContentionCount() {
+        final long count = contentionCount;
+        contentionCount = 0;
+        return count;
+    }
+
+    @Override
+    public List<RingBufferReaderStats> readers() {
+        return readerStats;
+    }
+
+    @Override
+    protected void performClose() {
+        Closeable.closeQuietly((Object[]) readers);
+        bytesStore.release(this);
+    }
+
+    /**
+     * Called when a reader is closed. By default the reader is stopped so it no longer holds back producers.
+     *
+     * @param reader being closed
+     */
+    protected void readerClosed(@NotNull RingBufferReader reader) {
+        reader.stop();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "VanillaMultiReaderBytesRingBuffer{" +
+                "capacity=" + capacity +
+                ", readers=" + readers.length +
+                ", claimPosition=" + bytesStore.readVolatileLong(claimOffset) +
+                ", publishPosition=" + bytesStore.readVolatileLong(publishOffset) +
+                '}';
+    }
+
+    /**
+     * A reader with its own read position, this should only be used by one thread at a time.
+     * <p>
+     * The read position is held in the header so a new reader with the same id continues where the last one left off.
+     */
+    final class Reader extends AbstractCloseable implements RingBufferReader {
+        final long positionOffset;
+        private long cachedPublishPosition;
+        private long underlyingIndex = UNKNOWN_INDEX;
+        private Bytes<?> view;
+        private long readCount;
+        private long missedReadCount;
+
+        Reader(long positionOffset) {
+            this.positionOffset = positionOffset;
+            // may be created on one thread and used on another.
+            singleThreadedCheckDisabled(true);
+        }
+
+        /**
+         * @return the position of the next record to read after skipping any padding, or -1 if there is none
+         */
+        private long nextRecord() {
+            long readPosition = bytesStore.readLong(positionOffset);
+            for (; ; ) {
+                if (readPosition >= cachedPublishPosition) {
+                    cachedPublishPosition = bytesStore.readVolatileLong(publishOffset);
+                    if (readPosition >= cachedPublishPosition) {
+                        missedReadCount++;
+                        return -1;
+                    }
+                }
+                final long index = readPosition & mask;
+                if (bytesStore.readInt(dataOffset + index) != PADDING) {
+                    updateWriteBytesRemaining(readPosition);
+                    return readPosition;
+                }
+                readPosition += capacity - index;
+                bytesStore.writeOrderedLong(positionOffset, readPosition);
+            }
+        }
+
+        /**
+         * As for {@link VanillaBytesRingBuffer}, the space left for producers is sampled on every read
+         */
+        private void updateWriteBytesRemaining(long readPosition) {
+            final long writeBytesRemaining = capacity - (cachedPublishPosition - readPosition);
+            if (writeBytesRemaining < minNumberOfWriteBytesRemaining)
+                minNumberOfWriteBytesRemaining = writeBytesRemaining;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bytesStore.readLong(positionOffset) >= bytesStore.readVolatileLong(publishOffset);
+        }
+
+        @Override
+        public boolean isStopped() {
+            return bytesStore.readVolatileLong(positionOffset + READER_STOPPED) != 0;
+        }
+
+        @Override
+        public void stop() {
+            bytesStore.writeOrderedLong(positionOffset + READER_STOPPED, 1L);
+        }
+
+        @Override
+        public long beforeRead(Bytes<?> bytes) {
+            throwExceptionIfClosed();
+
+            final long readPosition = nextRecord();
+            if (readPosition < 0) {
+                bytes.readLimit(bytes.readPosition());
+                return bytesStore.readLong(positionOffset);
+            }
+            final long offset = dataOffset + (readPosition & mask);
+            final int length = bytesStore.readInt(offset);
+            bytes.readPositionRemaining(offset + LENGTH_SIZE, length);
+            return readPosition + recordSize(length);
+        }
+
+        @Override
+        public void afterRead(long next) {
+            final long readPosition = bytesStore.readLong(positionOffset);
+            if (next <= readPosition)
+                return;
+            bytesStore.writeOrderedLong(positionOffset, next);
+            readCount++;
+        }
+
+        @Override
+        public void afterRead(long next, long payloadStart, long underlyingIndex) {
+            this.underlyingIndex = underlyingIndex;
+            afterRead(next);
+        }
+
+        @Override
+        public long underlyingIndex() {
+            return underlyingIndex;
+        }
+
+        @Override
+        public boolean read(BytesOut<?> bytes)
+                throws BufferOverflowException {
+            throwExceptionIfClosed();
+
+            final long readPosition = nextRecord();
+            if (readPosition < 0)
+                return false;
+            final long offset = dataOffset + (readPosition & mask);
+            final int length = bytesStore.readInt(offset);
+            if (bytes.writeRemaining() < length)
+                throw new DecoratedBufferOverflowException("Cannot read " + length + " bytes as only " + bytes.writeRemaining() + " bytes remain");
+            bytes.write(bytesStore, offset + LENGTH_SIZE, length);
+            bytesStore.writeOrderedLong(positionOffset, readPosition + recordSize(length));
+            readCount++;
+            return true;
+        }
+
+        @Override
+        public int drainTo(@NotNull ReadBytesMarshallable reader, @NonNegative int maxMessages) {
+            throwExceptionIfClosed();
+
+            if (view == null)
+                view = bytesStore.bytesForRead();
+            final long startPosition = bytesStore.readLong(positionOffset);
+            long readPosition = startPosition;
+            int count = 0;
+            try {
+                while (count < maxMessages) {
+                    if (readPosition >= cachedPublishPosition) {
+                        cachedPublishPosition = bytesStore.readVolatileLong(publishOffset);
+                        if (readPosition >= cachedPublishPosition)
+                            break;
+                    }
+                    final long index = readPosition & mask;
+                    final int length = bytesStore.readInt(dataOffset + index);
+                    if (length == PADDING) {
+                        readPosition += capacity - index;
+                        continue;
+                    }
+                    updateWriteBytesRemaining(readPosition);
+                    view.readPositionRemaining(dataOffset + index + LENGTH_SIZE, length);
+                    reader.readMarshallable(view);
+                    readPosition += recordSize(length);
+                    count++;
+                }
+            } finally {
+                if (readPosition != startPosition)
+                    bytesStore.writeOrderedLong(positionOffset, readPosition);
+                if (count == 0)
+                    missedReadCount++;
+                readCount += count;
+            }
+            return count;
+        }
+
+        @Override
+        public BytesStore byteStore() {
+            return bytesStore;
+        }
+
+        @Override
+        public void toEnd() {
+            bytesStore.writeOrderedLong(positionOffset, bytesStore.readVolatileLong(claimOffset));
+        }
+
+        @Override
+        public long getAndClearReadCount() {
+            final long count = readCount;
+            readCount = 0;
+            return count;
+        }
+
+        @Override
+        public long getAndClearMissedReadCount() {
+            final long count = missedReadCount;
+            missedReadCount = 0;
+            return count;
+        }
+
+        @Override
+        public long behind() {
+            return Math.max(0, bytesStore.readVolatileLong(publishOffset) - bytesStore.readVolatileLong(positionOffset));
+        }
+
+        @Override
+        protected void performClose() {
+            readerClosed(this);
+            if (view != null)
+                view.releaseLast();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.core.annotation.NonNegative;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How a producer waits for space in a ring buffer, or a reader waits for a message.
+ * <p>
+ * A WaitStrategy can hold state such as the current back off, so each thread should have its own instance.
+ * Threads pinned to an isolated core would typically {@link #busySpin()}, while background consumers would
+ * {@link #spinThenPark(int, long, long)} so they don't use a whole core.
+ */
+public interface WaitStrategy {
+
+    /**
+     * @return a strategy which spins without giving up the CPU
+     */
+    @NotNull
+    static WaitStrategy busySpin() {
+        return BusySpinWaitStrategy.INSTANCE;
+    }
+
+    /**
+     * @param spins the number of times to spin before yielding
+     * @return a strategy which spins, then yields each time
+     */
+    @NotNull
+    static WaitStrategy spinThenYield(@NonNegative int spins) {
+        return new YieldingWaitStrategy(spins);
+    }
+
+    /**
+     * @param spins      the number of times to spin before parking
+     * @param minParkNs  the first time to park for
+     * @param maxParkNs  the longest time to park for, the time parked doubles until this limit
+     * @return a strategy which spins, then parks with an exponential back off
+     */
+    @NotNull
+    static WaitStrategy spinThenPark(@NonNegative int spins, @NonNegative long minParkNs, @NonNegative long maxParkNs) {
+        return new BackoffParkWaitStrategy(spins, minParkNs, maxParkNs);
+    }
+
+    /**
+     * @param waitStrategy to use while waiting
+     * @param timeout      the longest time to wait
+     * @param timeUnit     of the timeout
+     * @return a strategy which gives up after the timeout
+     */
+    @NotNull
+    static WaitStrategy timed(@NotNull WaitStrategy waitStrategy, @NonNegative long timeout, @NotNull TimeUnit timeUnit) {
+        return new TimedWaitStrategy(waitStrategy, timeUnit.toNanos(timeout));
+    }
+
+    /**
+     * Called before starting to wait.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Called each time the condition waited for was not met.
+     *
+     * @return true to try again, or false if the caller should give up
+     */
+    boolean idle();
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+
+import static org.junit.Assert.*;
+
+public class BytesArenaTest extends BytesTestCommon {
+
+    @Test
+    public void allocatesUntilReset() {
+        try (BytesArena arena = new BytesArena(64)) {
+            final Bytes<Void> a = arena.allocate(10);
+            final Bytes<Void> b = arena.allocate(20);
+            assertEquals(10, a.writeLimit());
+            assertEquals(20, b.writeLimit());
+            assertEquals(36, arena.used());
+            // aligned to 8 bytes
+            assertEquals(16, b.addressForRead(0) - a.addressForRead(0));
+
+            a.writeLong(Long.MAX_VALUE).writeShort((short) 1);
+            b.append("hello");
+            try {
+                a.writeByte((byte) 1);
+                fail();
+            } catch (BufferOverflowException expected) {
+                // fixed capacity
+            }
+            assertEquals(Long.MAX_VALUE, a.readLong());
+            assertEquals("hello", b.toString());
+
+            try {
+                arena.allocate(32);
+                fail();
+            } catch (BufferOverflowException expected) {
+                // only 24 bytes remaining after alignment
+            }
+
+            arena.reset();
+            assertEquals(0, arena.used());
+            final Bytes<Void> c = arena.allocate(40);
+            assertSame(a, c);
+            assertEquals(0, c.readRemaining());
+            assertEquals(40, c.writeRemaining());
+        }
+    }
+
+    @Test
+    public void addressesAreAligned() {
+        try (BytesArena arena = new BytesArena(1024, 64)) {
+            for (int i = 0; i < 8; i++) {
+                final Bytes<Void> bytes = arena.allocate(10 + i);
+                assertEquals(0, bytes.addressForRead(0) % 64);
+            }
+        }
+    }
+}
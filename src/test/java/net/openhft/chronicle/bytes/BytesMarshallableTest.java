@@ -37,8 +37,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNull;
+import static org.junit.Assert.*;
 import static org.junit.Assume.assumeFalse;
 
 @RunWith(Parameterized.class)
@@ -407,6 +406,111 @@ public class BytesMarshallableTest extends BytesTestCommon {
         }
     }
 
+    @Test
+    public void collectionElementsReusedOnRead() {
+        final Bytes<?> bytes = new HexDumpBytes();
+        try {
+            final ReusedCollections rc = new ReusedCollections();
+            rc.longs.addAll(Arrays.asList(1000L, 2000L, 3000L));
+            rc.values.add(bm3(1));
+            rc.values.add(bm3(2));
+            rc.byId.put(1000L, bm3(10));
+            rc.writeMarshallable(bytes);
+
+            final ReusedCollections rc2 = new ReusedCollections();
+            final Long first = 1000L;
+            rc2.longs.addAll(Arrays.asList(first, 5L, 6L, 7L));
+            final BM3 value = bm3(9);
+            rc2.values.add(value);
+            final BM3 byId = bm3(99);
+            rc2.byId.put(1000L, byId);
+            rc2.readMarshallable(bytes);
+
+            assertEquals(rc.longs, rc2.longs);
+            assertSame(first, rc2.longs.get(0));
+            assertEquals(rc.values, rc2.values);
+            assertSame(value, rc2.values.get(0));
+            assertEquals(rc.byId, rc2.byId);
+            assertSame(byId, rc2.byId.get(1000L));
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void fieldIdsAllowFieldsToBeAddedAndRemoved() {
+        final Bytes<?> bytes = new HexDumpBytes();
+        try {
+            final OrderV1 v1 = new OrderV1();
+            v1.id = 1;
+            v1.symbol = "EURUSD";
+            v1.writeMarshallable(bytes);
+
+            // an older record read by a newer class
+            final OrderV2 v2 = new OrderV2();
+            v2.price = 1.5;
+            v2.fills.add(10L);
+            v2.readMarshallable(bytes);
+            assertEquals(1, v2.id);
+            assertEquals("EURUSD", v2.symbol);
+            assertEquals(0.0, v2.price, 0.0);
+            assertNull(v2.fills);
+
+            // a newer record read by an older class
+            v2.id = 2;
+            v2.price = 1.25;
+            v2.fills = new ArrayList<>(Arrays.asList(100L, 200L));
+            v2.symbol = "GBPUSD";
+            bytes.clear();
+            v2.writeMarshallable(bytes);
+            final OrderV1 v1b = new OrderV1();
+            v1b.readMarshallable(bytes);
+            assertEquals(2, v1b.id);
+            assertEquals("GBPUSD", v1b.symbol);
+            assertEquals(0, bytes.readRemaining());
+
+            // the same class reads the fields in order
+            bytes.readPosition(0);
+            final OrderV2 v2b = new OrderV2();
+            v2b.readMarshallable(bytes);
+            assertEquals(2, v2b.id);
+            assertEquals(1.25, v2b.price, 0.0);
+            assertEquals("GBPUSD", v2b.symbol);
+            assertEquals(Arrays.asList(100L, 200L), v2b.fills);
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void fieldIdWithADifferentTypeIsReset() {
+        final Bytes<?> bytes = new HexDumpBytes();
+        try {
+            final OrderV2 v2 = new OrderV2();
+            v2.id = 3;
+            v2.price = 1.25;
+            v2.symbol = "GBPUSD";
+            v2.fills = new ArrayList<>(Arrays.asList(100L, 200L));
+            v2.writeMarshallable(bytes);
+
+            // symbol was a String and is now a List with the same id
+            final OrderV3 v3 = new OrderV3();
+            v3.readMarshallable(bytes);
+            assertEquals(3, v3.id);
+            assertNull(v3.symbol);
+            assertEquals(1.25, v3.price, 0.0);
+            assertEquals(0, bytes.readRemaining());
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    private static BM3 bm3(long value) {
+        final BM3 bm3 = new BM3();
+        bm3.value = value;
+        return bm3;
+    }
+
     @Test
     public void collectionsNotInitializedInConstructor() {
         final Bytes<?> bytes = new HexDumpBytes();
@@ -619,6 +723,102 @@ public class BytesMarshallableTest extends BytesTestCommon {
 
     }
 
+    @Test
+    public void fieldGroupCopiedAsOneBlock() {
+        assumeFalse(NativeBytes.areNewGuarded());
+        final Bytes<?> bytes = new HexDumpBytes();
+        try {
+            final Quote quote = new Quote();
+            quote.symbol = "EURUSD";
+            quote.bidPrice = 1;
+            quote.askPrice = 2;
+            quote.bidQty = 3;
+            quote.askQty = 4;
+            quote.writeMarshallable(bytes);
+            final String hex = bytes.toHexString();
+            assertTrue(hex, hex.contains("# prices"));
+            assertFalse(hex, hex.contains("# bidPrice"));
+
+            final Quote quote2 = new Quote();
+            quote2.readMarshallable(bytes);
+            assertEquals("EURUSD", quote2.symbol);
+            assertEquals(1, quote2.bidPrice);
+            assertEquals(2, quote2.askPrice);
+            assertEquals(3, quote2.bidQty);
+            assertEquals(4, quote2.askQty);
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void fieldGroupsWrittenAsEachField() {
+        assumeFalse(NativeBytes.areNewGuarded());
+        final Quote quote = new Quote();
+        quote.symbol = "EURUSD";
+        quote.bidPrice = 1;
+        quote.askPrice = 2;
+        quote.bidQty = 3;
+        quote.askQty = 4;
+        final PlainQuote plainQuote = new PlainQuote();
+        plainQuote.symbol = "EURUSD";
+        plainQuote.bidPrice = 1;
+        plainQuote.askPrice = 2;
+        plainQuote.bidQty = 3;
+        plainQuote.askQty = 4;
+        assertSameBytes(plainQuote, quote);
+
+        // boolean, char and fields laid out in a different order fall back to each field
+        final MixedGroup mixed = new MixedGroup();
+        mixed.flag = true;
+        mixed.ch = 'X';
+        mixed.num = 1;
+        mixed.small = 2;
+        mixed.large = 3;
+        mixed.first = 4;
+        mixed.second = 5;
+        mixed.third = 6;
+        final PlainMixed plainMixed = new PlainMixed();
+        plainMixed.flag = true;
+        plainMixed.ch = 'X';
+        plainMixed.num = 1;
+        plainMixed.small = 2;
+        plainMixed.large = 3;
+        plainMixed.first = 4;
+        plainMixed.second = 5;
+        plainMixed.third = 6;
+        assertSameBytes(plainMixed, mixed);
+
+        final HexDumpBytes hex = new HexDumpBytes();
+        try {
+            mixed.writeMarshallable(hex);
+            final String dump = hex.toHexString();
+            assertTrue(dump, dump.contains("# flag"));
+
+            final MixedGroup mixed2 = new MixedGroup();
+            mixed2.readMarshallable(hex);
+            assertTrue(mixed2.flag);
+            assertEquals('X', mixed2.ch);
+            assertEquals(3, mixed2.large);
+            assertEquals(6, mixed2.third);
+        } finally {
+            hex.releaseLast();
+        }
+    }
+
+    private static void assertSameBytes(BytesMarshallable expected, BytesMarshallable actual) {
+        final Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        final Bytes<?> bytes2 = Bytes.allocateElasticOnHeap();
+        try {
+            expected.writeMarshallable(bytes);
+            actual.writeMarshallable(bytes2);
+            assertEquals(bytes.toHexString(), bytes2.toHexString());
+        } finally {
+            bytes.releaseLast();
+            bytes2.releaseLast();
+        }
+    }
+
     @Test
     public void arrays() {
         final Bytes<?> bytes = new HexDumpBytes();
@@ -665,6 +865,39 @@ public class BytesMarshallableTest extends BytesTestCommon {
         List<Integer> numbers = new ArrayList<>();
     }
 
+    private static final class OrderV1 implements BytesMarshallable {
+        @FieldId(1)
+        long id;
+        @FieldId(2)
+        String symbol;
+    }
+
+    private static final class OrderV2 implements BytesMarshallable {
+        @FieldId(1)
+        long id;
+        @FieldId(3)
+        double price;
+        @FieldId(2)
+        String symbol;
+        @FieldId(4)
+        List<Long> fills = new ArrayList<>();
+    }
+
+    private static final class OrderV3 implements BytesMarshallable {
+        @FieldId(1)
+        long id;
+        @FieldId(2)
+        List<Long> symbol = new ArrayList<>();
+        @FieldId(3)
+        double price;
+    }
+
+    private static final class ReusedCollections implements BytesMarshallable {
+        List<Long> longs = new ArrayList<>();
+        List<BM3> values = new ArrayList<>();
+        Map<Long, BM3> byId = new LinkedHashMap<>();
+    }
+
     private static final class BM1 implements BytesMarshallable {
         int num;
         BM2 bm2 = new BM2();
@@ -710,6 +943,47 @@ public class BytesMarshallableTest extends BytesTestCommon {
         }
     }
 
+    private static final class Quote implements BytesMarshallable {
+        String symbol;
+        @FieldGroup("prices")
+        long bidPrice, askPrice, bidQty, askQty;
+    }
+
+    private static final class PlainQuote implements BytesMarshallable {
+        String symbol;
+        long bidPrice, askPrice, bidQty, askQty;
+    }
+
+    private static final class MixedGroup implements BytesMarshallable {
+        @FieldGroup("g")
+        boolean flag;
+        @FieldGroup("g")
+        char ch;
+        @FieldGroup("g")
+        int num;
+        @FieldGroup("w")
+        int small;
+        @FieldGroup("w")
+        long large;
+        @FieldGroup("s")
+        long first;
+        @FieldGroup("s")
+        int second;
+        @FieldGroup("s")
+        short third;
+    }
+
+    private static final class PlainMixed implements BytesMarshallable {
+        boolean flag;
+        char ch;
+        int num;
+        int small;
+        long large;
+        long first;
+        int second;
+        short third;
+    }
+
     private static final class BMA implements BytesMarshallable {
         byte[] bytes;
         int[] ints;
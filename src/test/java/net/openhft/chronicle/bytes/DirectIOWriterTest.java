@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import net.openhft.chronicle.core.io.IOTools;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class DirectIOWriterTest extends BytesTestCommon {
+
+    @Test
+    public void writtenFileCanBeMapped()
+            throws IOException {
+        final File file = IOTools.createTempFile("writtenFileCanBeMapped");
+        final Bytes<?> message = Bytes.allocateElasticDirect(64);
+        try {
+            long expected = 0;
+            try (DirectIOWriter writer = DirectIOWriter.open(file, 10_000)) {
+                for (int i = 0; i < 10_000; i++) {
+                    message.clear().append("message-").append(i).append('\n');
+                    writer.append(message);
+                    expected += message.readRemaining();
+                }
+                assertEquals(expected, writer.position());
+            }
+            assertEquals(expected, file.length());
+
+            try (MappedBytes bytes = MappedBytes.readOnly(file)) {
+                for (int i = 0; i < 10_000; i++)
+                    assertEquals("message-" + i, bytes.parse8bit(StopCharTesters.CONTROL_STOP));
+            }
+        } finally {
+            message.releaseLast();
+            deleteIfPossible(file);
+        }
+    }
+}
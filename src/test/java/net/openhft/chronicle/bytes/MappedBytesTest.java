@@ -17,6 +17,7 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.NativeBytesStore;
 import net.openhft.chronicle.bytes.util.DecoratedBufferOverflowException;
 import net.openhft.chronicle.bytes.util.DecoratedBufferUnderflowException;
 import net.openhft.chronicle.core.Jvm;
@@ -31,6 +32,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.BufferOverflowException;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Queue;
 import java.util.Random;
@@ -643,4 +645,46 @@ public class MappedBytesTest extends BytesTestCommon {
             slice.releaseLast();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void transferToAndFromChannels()
+            throws IOException {
+        final File mapped = File.createTempFile("mapped", "bytes");
+        final File copy = File.createTempFile("mapped", "copy");
+        final NativeBytesStore<Void> nbs = NativeBytesStore.nativeStoreWithFixedCapacity(100_000);
+        try (MappedBytes bytes = MappedBytes.mappedBytes(mapped, 64 << 10, OS.pageSize());
+             RandomAccessFile raf = new RandomAccessFile(copy, "rw");
+             FileChannel channel = raf.getChannel()) {
+            for (int i = 0; i < 10_000; i++)
+                bytes.writeInt(i);
+            final MappedBytesStore store = (MappedBytesStore) bytes.bytesStore();
+            assertEquals(40_000, store.transferTo(channel, 0, 40_000));
+            assertEquals(40_000, channel.size());
+
+            channel.position(0);
+            assertEquals(40_000, nbs.transferFrom(channel, 100, 40_000));
+            assertEquals(-1, nbs.transferFrom(channel, 100, 100));
+            for (int i = 0; i < 10_000; i++)
+                assertEquals(i, nbs.readInt(100 + i * 4L));
+
+            channel.truncate(0);
+            assertEquals(40_000, nbs.transferTo(channel, 100, 40_000));
+            channel.position(0);
+            assertEquals(40_000, store.transferFrom(channel, 20_000, 40_000));
+            assertEquals(-1, store.transferFrom(channel, 20_000, 100));
+            for (int i = 0; i < 10_000; i++)
+                assertEquals(i, bytes.readInt(20_000 + i * 4L));
+
+            try {
+                nbs.transferTo(channel, 90_000, 20_000);
+                fail();
+            } catch (DecoratedBufferUnderflowException expected) {
+                // beyond the capacity
+            }
+        } finally {
+            nbs.releaseLast();
+            mapped.delete();
+            copy.delete();
+        }
+    }
+}
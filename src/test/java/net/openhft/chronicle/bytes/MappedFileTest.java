@@ -17,6 +17,7 @@
  */
 package net.openhft.chronicle.bytes;
 
+import net.openhft.chronicle.bytes.internal.ChunkedMappedFile;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.io.IOTools;
@@ -30,6 +31,9 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.*;
 import java.nio.BufferUnderflowException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 import static org.junit.Assume.assumeFalse;
@@ -241,6 +245,179 @@ public class MappedFileTest extends BytesTestCommon {
         file.deleteOnExit();
     }
 
+    @Test
+    public void acquireChunksOutOfOrder()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        final long chunkSize = OS.mapAlign(64);
+        final ReferenceOwner test = ReferenceOwner.temporary("test");
+        try (final MappedFile mappedFile = MappedFile.mappedFile(file, chunkSize, 0)) {
+            final MappedBytesStore far = mappedFile.acquireByteStore(test, 40 * chunkSize);
+            final MappedBytesStore near = mappedFile.acquireByteStore(test, 3 * chunkSize);
+            assertEquals(40 * chunkSize, far.start());
+            assertEquals(3 * chunkSize, near.start());
+
+            // already mapped so the same store is returned
+            final MappedBytesStore far2 = mappedFile.acquireByteStore(test, 40 * chunkSize + 8);
+            assertSame(far, far2);
+            assertEquals(2, mappedFile.chunkCount());
+
+            far2.release(test);
+            far.release(test);
+            near.release(test);
+        }
+    }
+
+    @Test
+    public void preMapsNextChunkInBackground()
+            throws IOException, InterruptedException {
+        final File file = tmpDir.newFile();
+        final long chunkSize = OS.mapAlign(64 << 10);
+        final BlockingQueue<String> newChunks = new LinkedBlockingQueue<>();
+        try (final MappedFile mappedFile = MappedFile.mappedFile(file, chunkSize, 0)) {
+            ((ChunkedMappedFile) mappedFile).preMapWatermark(chunkSize / 2);
+            mappedFile.setNewChunkListener((filename, chunk, delayMicros) ->
+                    newChunks.add(chunk + " " + Thread.currentThread().getName()));
+
+            try (MappedBytes bytes = MappedBytes.mappedBytes(mappedFile)) {
+                while (bytes.writePosition() <= chunkSize / 2)
+                    bytes.writeLong(bytes.writePosition());
+                assertEquals("0 " + Thread.currentThread().getName(), newChunks.poll(5, TimeUnit.SECONDS));
+                assertEquals("1 " + file.getName() + "/pre-mapper", newChunks.poll(5, TimeUnit.SECONDS));
+
+                // the writer uses the chunk already mapped
+                while (bytes.writePosition() < chunkSize + 64)
+                    bytes.writeLong(bytes.writePosition());
+                assertEquals(2, mappedFile.chunkCount());
+                assertEquals(chunkSize, bytes.readLong(chunkSize));
+            }
+        }
+    }
+
+    @Test
+    public void backgroundSyncAdvancesDurablePosition()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        try (final MappedFile mappedFile = MappedFile.mappedFile(file, OS.mapAlign(64 << 10), 0);
+             final MappedBytes bytes = MappedBytes.mappedBytes(mappedFile)) {
+            mappedFile.syncMode(SyncMode.BACKGROUND);
+            for (int i = 0; i < 1000; i++)
+                bytes.writeLong(i);
+            assertEquals(0, bytes.durablePosition());
+
+            bytes.sync();
+            final long timeout = System.currentTimeMillis() + 5_000;
+            while (bytes.durablePosition() < bytes.writePosition()) {
+                assertTrue(System.currentTimeMillis() < timeout);
+                Jvm.pause(1);
+            }
+            assertEquals(8000, bytes.durablePosition());
+        }
+    }
+
+    @Test
+    public void accessHintAppliedToChunks()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        final long chunkSize = OS.mapAlign(64 << 10);
+        final ReferenceOwner test = ReferenceOwner.temporary("test");
+        try (final MappedFile mappedFile = MappedFile.mappedFile(file, chunkSize, 0)) {
+            final MappedBytesStore mbs0 = mappedFile.acquireByteStore(test, 0);
+            try {
+                mappedFile.accessHint(AccessHint.SEQUENTIAL);
+                mappedFile.prefaultNewChunks(true);
+                assertEquals(AccessHint.SEQUENTIAL, mappedFile.accessHint());
+
+                final MappedBytesStore mbs1 = mappedFile.acquireByteStore(test, chunkSize);
+                try {
+                    assertEquals(OS.isLinux(), mbs1.advise(AccessHint.RANDOM, chunkSize + 100, 4096));
+                    // not in this chunk
+                    assertFalse(mbs1.advise(AccessHint.RANDOM, 0, 100));
+                    assertEquals(0L, mbs1.readLong(chunkSize));
+                } finally {
+                    mbs1.release(test);
+                }
+            } finally {
+                mbs0.release(test);
+            }
+        }
+    }
+
+    @Test
+    public void retainsRecentlyUsedChunks()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        final long chunkSize = OS.mapAlign(64 << 10);
+        final ReferenceOwner test = ReferenceOwner.temporary("test");
+        try (final MappedFile mappedFile = MappedFile.mappedFile(file, chunkSize, 0)) {
+            final ChunkedMappedFile chunked = (ChunkedMappedFile) mappedFile;
+            chunked.maxRetainedChunks(2);
+            for (int chunk : new int[]{0, 1, 0, 2, 0, 1})
+                mappedFile.acquireByteStore(test, chunk * chunkSize).release(test);
+
+            // chunk 0 is used most so it stays mapped, while 1 and then 2 are evicted
+            assertEquals(2, chunked.chunkHits());
+            assertEquals(4, chunked.chunkMaps());
+            assertEquals(2, chunked.chunkUnmaps());
+
+            chunked.maxRetainedChunks(0);
+            assertEquals(4, chunked.chunkUnmaps());
+        }
+    }
+
+    @Test
+    public void preallocatesChunksInBackground()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        final long chunkSize = OS.mapAlign(64 << 10);
+        final ReferenceOwner test = ReferenceOwner.temporary("test");
+        try (final MappedFile mappedFile = MappedFile.mappedFile(file, chunkSize, 0)) {
+            ((ChunkedMappedFile) mappedFile).preallocateChunks(2, true);
+            final MappedBytesStore mbs = mappedFile.acquireByteStore(test, 0);
+            try {
+                mbs.writeLong(0, 1);
+                final long timeout = System.currentTimeMillis() + 5_000;
+                while (file.length() < 3 * chunkSize) {
+                    assertTrue(System.currentTimeMillis() < timeout);
+                    Jvm.pause(1);
+                }
+                assertEquals(3 * chunkSize, file.length());
+                assertEquals(1L, mbs.readLong(0));
+            } finally {
+                mbs.release(test);
+            }
+        }
+    }
+
+    @Test
+    public void recordsMetrics()
+            throws IOException {
+        final File file = tmpDir.newFile();
+        final long chunkSize = OS.mapAlign(64 << 10);
+        final ReferenceOwner test = ReferenceOwner.temporary("test");
+        final MappedFileMetrics metrics = new MappedFileMetrics().samplePageFaults(true);
+        try (final MappedFile mappedFile = MappedFile.mappedFile(file, chunkSize, 0)) {
+            mappedFile.metrics(metrics);
+            mappedFile.syncMode(SyncMode.SYNC);
+            for (int chunk = 0; chunk < 3; chunk++) {
+                final MappedBytesStore mbs = mappedFile.acquireByteStore(test, chunk * chunkSize);
+                mbs.prefault(mbs.start(), chunkSize);
+                mbs.writeLong(mbs.start(), chunk);
+                mbs.syncUpTo(mbs.start() + 8);
+                mbs.release(test);
+            }
+        }
+        assertEquals(3, metrics.mapCount());
+        assertEquals(3, metrics.mapLatency().totalCount());
+        assertEquals(3, metrics.resizeCount());
+        assertEquals(3, metrics.unmapCount());
+        if (OS.isLinux()) {
+            // a sync for each syncUpTo and each unmap
+            assertEquals(6, metrics.syncCount());
+            assertEquals(3, metrics.minorFaultsPerChunk().totalCount());
+        }
+    }
+
     @After
     public void clearInterrupt() {
         Thread.interrupted();
@@ -20,6 +20,7 @@ package net.openhft.chronicle.bytes;
 import net.openhft.chronicle.bytes.internal.NativeBytesStore;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.io.IORuntimeException;
 import net.openhft.chronicle.core.util.Histogram;
 import org.jetbrains.annotations.NotNull;
@@ -52,6 +53,22 @@ public class NativeBytesStoreTest extends BytesTestCommon {
             bytes.append(t);
     }
 
+    @Test
+    public void hugePageStore() {
+        final long capacity = 3 * NativeBytesStore.HUGE_PAGE_SIZE + 100;
+        final NativeBytesStore<Void> bytesStore = NativeBytesStore.hugePageStoreWithFixedCapacity(capacity);
+        try {
+            assertEquals(capacity, bytesStore.capacity());
+            if (OS.isLinux())
+                assertEquals(0, bytesStore.addressForRead(0) % NativeBytesStore.HUGE_PAGE_SIZE);
+            assertEquals(0L, bytesStore.readLong(capacity - 8));
+            bytesStore.writeLong(capacity - 8, 123);
+            assertEquals(123L, bytesStore.readLong(capacity - 8));
+        } finally {
+            bytesStore.releaseLast();
+        }
+    }
+
     @Test
     public void issue176StopBits() {
         final int stepLength = 23; // A prime of reasonable size (lagom) so we save some time stepping through the iterations
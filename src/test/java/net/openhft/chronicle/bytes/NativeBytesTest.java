@@ -140,6 +140,32 @@ public class NativeBytesTest extends BytesTestCommon {
         nativeBytes.releaseLast();
     }
 
+    @Test
+    public void growthPolicy() {
+        Assume.assumeFalse(alloc == HEAP);
+
+        long pageSize = OS.pageSize();
+        @NotNull NativeBytes<Void> nativeBytes = NativeBytes.nativeBytes(2 * pageSize);
+        try {
+            nativeBytes.growthPolicy(GrowthPolicy.fixedStep(pageSize));
+            nativeBytes.writePosition(nativeBytes.realCapacity() - 3);
+            nativeBytes.writeInt(0);
+            assertEquals(3 * pageSize, nativeBytes.realCapacity());
+
+            nativeBytes.growthPolicy(GrowthPolicy.doubling());
+            nativeBytes.writePosition(nativeBytes.realCapacity());
+            nativeBytes.writeInt(0);
+            assertEquals(6 * pageSize, nativeBytes.realCapacity());
+
+            nativeBytes.growthPolicy(GrowthPolicy.capped(GrowthPolicy.doubling(), pageSize));
+            nativeBytes.writePosition(nativeBytes.realCapacity());
+            nativeBytes.writeInt(0);
+            assertEquals(7 * pageSize, nativeBytes.realCapacity());
+        } finally {
+            nativeBytes.releaseLast();
+        }
+    }
+
     @Test
     public void tryGrowBeyondByteBufferCapacity() {
         Assume.assumeFalse(alloc == HEAP);
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScatterGatherTest extends BytesTestCommon {
+
+    @Test
+    public void gatheringWriteThenScatteringRead()
+            throws IOException {
+        final File file = File.createTempFile("scatter", "gather");
+        final Bytes<?> header = Bytes.allocateDirect(16);
+        final Bytes<?> payload = Bytes.allocateElasticOnHeap(64);
+        final Bytes<?> header2 = Bytes.allocateDirect(8);
+        final Bytes<?> payload2 = Bytes.allocateElasticOnHeap(64);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            payload.append("Hello World");
+            header.writeInt(0x12345678).writeInt((int) payload.readRemaining());
+
+            assertEquals(19, BytesIn.gatheringWrite(channel, header, payload));
+            assertEquals(0, header.readRemaining());
+            assertEquals(0, payload.readRemaining());
+            assertEquals(19, channel.size());
+
+            channel.position(0);
+            payload2.ensureCapacity(11);
+            assertEquals(19, BytesOut.scatteringRead(channel, header2, payload2));
+            assertEquals(0x12345678, header2.readInt());
+            assertEquals(11, header2.readInt());
+            assertEquals("Hello World", payload2.toString());
+
+            header2.clear();
+            assertEquals(-1, BytesOut.scatteringRead(channel, header2, payload2));
+            assertEquals(0, header2.writePosition());
+        } finally {
+            header.releaseLast();
+            payload.releaseLast();
+            header2.releaseLast();
+            payload2.releaseLast();
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SegmentedBytesTest extends BytesTestCommon {
+
+    @Test
+    public void onHeap() {
+        doTest(SegmentedBytes.allocateOnHeap(64));
+    }
+
+    @Test
+    public void direct() {
+        doTest(SegmentedBytes.allocateDirect(64));
+    }
+
+    private static void doTest(SegmentedBytes bytes) {
+        try {
+            assertTrue(bytes.isElastic());
+            assertEquals(0, bytes.realCapacity());
+
+            // 60 bytes so the following long and int span a segment boundary
+            bytes.writeSkip(60);
+            bytes.writeLong(0x0102030405060708L);
+            assertEquals(128, bytes.realCapacity());
+            bytes.writeInt(126, 0x11223344);
+            bytes.writePosition(130);
+
+            final byte[] data = new byte[200];
+            for (int i = 0; i < data.length; i++)
+                data[i] = (byte) i;
+            bytes.write(data);
+            bytes.writeUtf8("hello world");
+            assertEquals(384, bytes.realCapacity());
+
+            bytes.readSkip(60);
+            assertEquals(0x0102030405060708L, bytes.readLong());
+            assertEquals(0x11223344, bytes.readInt(126));
+            bytes.readPosition(130);
+            final byte[] data2 = new byte[data.length];
+            bytes.read(data2);
+            assertArrayEquals(data, data2);
+            assertEquals("hello world", bytes.readUtf8());
+
+            bytes.readPosition(0);
+            final BytesStore copy = bytes.copy();
+            try {
+                assertEquals(0x0102030405060708L, copy.readLong(60));
+            } finally {
+                copy.releaseLast();
+            }
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atomicAccessMustNotSpanSegments() {
+        final SegmentedBytes bytes = SegmentedBytes.allocateOnHeap(64);
+        try {
+            bytes.writeSkip(128);
+            bytes.compareAndSwapLong(60, 0, 1);
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.pool;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SizeClassedBytesPoolTest extends BytesTestCommon {
+
+    @Test
+    public void reusesBuffersReturnedFromAnotherThread()
+            throws Exception {
+        final SizeClassedBytesPool pool = new SizeClassedBytesPool(256, 4096, 1024);
+        final ExecutorService consumer = Executors.newSingleThreadExecutor();
+        try {
+            final Bytes<Void> bytes = pool.acquire(300);
+            assertEquals(512, bytes.realCapacity());
+            bytes.append("hello");
+            consumer.submit(() -> pool.release(bytes)).get();
+            assertEquals(512, pool.retainedBytes());
+
+            final Bytes<Void> bytes2 = pool.acquire(400);
+            assertSame(bytes, bytes2);
+            assertEquals(0, bytes2.readRemaining());
+            // usable on this thread after being cleared by the consumer
+            bytes2.append("world");
+            assertEquals("world", bytes2.toString());
+            bytes2.clear();
+            assertEquals(2, pool.acquireCount());
+            assertEquals(1, pool.missCount());
+
+            // 1024 bytes per class only holds two buffers of 512
+            final Bytes<Void> bytes3 = pool.acquire(512);
+            final Bytes<Void> bytes4 = pool.acquire(512);
+            pool.release(bytes2);
+            pool.release(bytes3);
+            pool.release(bytes4);
+            assertEquals(4, pool.returnCount());
+            assertEquals(1, pool.discardCount());
+            assertEquals(1024, pool.retainedBytes());
+
+            // larger than the largest class so it isn't retained
+            final Bytes<Void> large = pool.acquire(10_000);
+            assertTrue(large.realCapacity() >= 10_000);
+            pool.release(large);
+            assertEquals(2, pool.discardCount());
+        } finally {
+            consumer.shutdown();
+            consumer.awaitTermination(1, TimeUnit.SECONDS);
+            pool.close();
+        }
+        assertEquals(0, pool.retainedBytes());
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ref;
+
+import net.openhft.chronicle.bytes.Byteable;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import net.openhft.chronicle.bytes.HexDumpBytes;
+import net.openhft.chronicle.core.io.Closeable;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StructLayoutTest extends BytesTestCommon {
+
+    @Test
+    public void layout() {
+        final StructLayout<Order> layout = StructLayout.of(Order.class);
+        assertSame(layout, StructLayout.of(Order.class));
+        // 3 x 8 + 4 + 1 padded to 8
+        assertEquals(32, layout.size());
+        assertEquals(0, layout.offsetOf("id"));
+        assertEquals(8, layout.offsetOf("price"));
+        assertEquals(16, layout.offsetOf("version"));
+        assertEquals(24, layout.offsetOf("quantity"));
+        assertEquals(28, layout.offsetOf("buy"));
+    }
+
+    @Test
+    public void flyweight() {
+        @NotNull BytesStore nbs = BytesStore.nativeStoreWithFixedCapacity(64);
+        final Order order = StructLayout.of(Order.class).newInstance();
+        try {
+            ((Byteable) order).bytesStore(nbs, 32, 32);
+            order.setId(1234);
+            order.setPrice(1.25);
+            order.setQuantity(100);
+            order.setBuy(true);
+            assertEquals(1234L, nbs.readLong(32));
+            assertEquals(1.25, nbs.readDouble(40), 0.0);
+            assertEquals(100, nbs.readInt(56));
+
+            assertEquals(1, order.addVersion(1));
+            assertTrue(order.compareAndSwapVersion(1, 5));
+            assertFalse(order.compareAndSwapVersion(1, 6));
+            order.setOrderedVersion(7);
+            assertEquals(7, order.getVolatileVersion());
+            assertEquals("Order{id=1234, price=1.25, version=7, quantity=100, buy=true}", order.toString());
+        } finally {
+            ((Closeable) order).close();
+            nbs.releaseLast();
+        }
+    }
+
+    @Test
+    public void arrayOfStructs() {
+        @NotNull BytesStore nbs = BytesStore.nativeStoreWithFixedCapacity(32 * 10);
+        try (StructArray<Order> orders = StructLayout.of(Order.class).arrayOf(nbs, 0, 10)) {
+            for (int i = 0; i < orders.length(); i++) {
+                final Order order = orders.get(i);
+                order.setId(i);
+                order.setQuantity(i * 10);
+            }
+            assertEquals(7, orders.get(7).getId());
+            assertEquals(30, orders.get(3).getQuantity());
+            assertEquals(9L, nbs.readLong(9 * 32));
+            try {
+                orders.get(10);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+                // only 10 structs
+            }
+        } finally {
+            nbs.releaseLast();
+        }
+    }
+
+    @Test
+    public void typedFields() {
+        @NotNull BytesStore nbs = BytesStore.nativeStoreWithFixedCapacity(64);
+        try {
+            final StructLayout<Order> layout = StructLayout.of(Order.class);
+            final StructLayout.LongField id = layout.longField("id");
+            final StructLayout.DoubleField price = layout.doubleField("price");
+            final StructLayout.LongField version = layout.longField("version");
+            final StructLayout.IntField quantity = layout.intField("quantity");
+            final StructLayout.BooleanField buy = layout.booleanField("buy");
+
+            id.setValue(nbs, 32, 1234);
+            price.setValue(nbs, 32, 1.25);
+            quantity.setValue(nbs, 32, 100);
+            buy.setValue(nbs, 32, true);
+            assertEquals(1, version.addValue(nbs, 32, 1));
+            assertTrue(version.compareAndSwapValue(nbs, 32, 1, 7));
+
+            final Order order = layout.newInstance();
+            try {
+                ((Byteable) order).bytesStore(nbs, 32, 32);
+                assertEquals("Order{id=1234, price=1.25, version=7, quantity=100, buy=true}", order.toString());
+            } finally {
+                ((Closeable) order).close();
+            }
+            assertEquals(1234L, id.getValue(nbs, 32));
+            assertEquals(1.25, price.getValue(nbs, 32), 0.0);
+            assertEquals(100, quantity.getVolatileValue(nbs, 32));
+            assertTrue(buy.getValue(nbs, 32));
+        } finally {
+            nbs.releaseLast();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void typedFieldMustMatch() {
+        StructLayout.of(Order.class).intField("price");
+    }
+
+    @Test
+    public void arrayOfStructsInHexDumpBytes() {
+        final HexDumpBytes hdb = new HexDumpBytes();
+        try {
+            hdb.writeLong(-1);
+            // the position of a HexDumpBytes includes the position in the text
+            final long offset = hdb.writePosition();
+            for (int i = 0; i < 3; i++) {
+                hdb.writeLong(100 + i);
+                hdb.writeSkip(24);
+            }
+            try (StructArray<Order> orders = StructLayout.of(Order.class).arrayOf(hdb, offset, 3)) {
+                assertEquals(100, orders.get(0).getId());
+                assertEquals(102, orders.get(2).getId());
+                assertEquals(101, orders.get(1).getId());
+            }
+        } finally {
+            hdb.releaseLast();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ambiguousPropertyName() {
+        StructLayout.of(Ambiguous.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPrimitiveField() {
+        StructLayout.of(Named.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addMustReturnFieldType() {
+        StructLayout.of(BadAdd.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compareAndSwapMustReturnBoolean() {
+        StructLayout.of(BadCompareAndSwap.class);
+    }
+
+    interface Order {
+        long getId();
+
+        void setId(long id);
+
+        double getPrice();
+
+        void setPrice(double price);
+
+        int getQuantity();
+
+        void setQuantity(int quantity);
+
+        boolean isBuy();
+
+        void setBuy(boolean buy);
+
+        long getVolatileVersion();
+
+        void setOrderedVersion(long version);
+
+        boolean compareAndSwapVersion(long expected, long value);
+
+        long addVersion(long delta);
+    }
+
+    interface Named {
+        String getName();
+    }
+
+    interface Ambiguous {
+        long getQty();
+
+        // an ordered write of qty, or a setter of orderedQty
+        void setOrderedQty(long qty);
+
+        long getOrderedQty();
+    }
+
+    interface BadAdd {
+        long getCount();
+
+        int addCount(long delta);
+    }
+
+    interface BadCompareAndSwap {
+        long getCount();
+
+        long compareAndSwapCount(long expected, long value);
+    }
+}
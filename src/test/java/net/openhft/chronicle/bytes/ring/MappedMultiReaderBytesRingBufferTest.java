@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import net.openhft.chronicle.bytes.RingBufferReader;
+import net.openhft.chronicle.core.io.IOTools;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class MappedMultiReaderBytesRingBufferTest extends BytesTestCommon {
+
+    @Test
+    public void restartedReaderContinues()
+            throws IOException {
+        File file = IOTools.createTempFile("restartedReaderContinues");
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        try {
+            try (MappedMultiReaderBytesRingBuffer producer = MappedMultiReaderBytesRingBuffer.of(file, 1 << 10, 1);
+                 MappedMultiReaderBytesRingBuffer consumer = MappedMultiReaderBytesRingBuffer.of(file, 1 << 10, 1)) {
+                RingBufferReader reader = consumer.createReader();
+                for (int i = 0; i < 3; i++)
+                    assertTrue(producer.offer(Bytes.from("msg-" + i)));
+
+                assertTrue(reader.read(bytes));
+                assertEquals("msg-0", bytes.toString());
+                reader.close();
+            }
+
+            try (MappedMultiReaderBytesRingBuffer consumer = MappedMultiReaderBytesRingBuffer.of(file, 1 << 10, 1)) {
+                RingBufferReader reader = consumer.createReader();
+                bytes.clear();
+                assertTrue(reader.read(bytes));
+                assertEquals("msg-1", bytes.toString());
+                bytes.clear();
+                assertTrue(reader.read(bytes));
+                assertEquals("msg-2", bytes.toString());
+                assertFalse(reader.read(bytes));
+            }
+        } finally {
+            bytes.releaseLast();
+            deleteIfPossible(file);
+        }
+    }
+
+    @Test
+    public void consumerAttachingLaterSeesEarlierMessages()
+            throws IOException {
+        File file = IOTools.createTempFile("consumerAttachingLater");
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        try (MappedMultiReaderBytesRingBuffer producer = MappedMultiReaderBytesRingBuffer.of(file, 1 << 10, 1)) {
+            assertTrue(producer.offer(Bytes.from("first")));
+            try (MappedMultiReaderBytesRingBuffer consumer = MappedMultiReaderBytesRingBuffer.of(file, 1 << 10, 1)) {
+                assertTrue(consumer.createReader().read(bytes));
+                assertEquals("first", bytes.toString());
+            }
+        } finally {
+            bytes.releaseLast();
+            deleteIfPossible(file);
+        }
+    }
+
+    @Test
+    public void differentLayoutIsRejected()
+            throws IOException {
+        File file = IOTools.createTempFile("differentLayoutIsRejected");
+        try (MappedMultiReaderBytesRingBuffer ring = MappedMultiReaderBytesRingBuffer.of(file, 1 << 10, 2)) {
+            assertEquals(1 << 10, ring.capacity());
+            final long length = file.length();
+            try {
+                MappedMultiReaderBytesRingBuffer.of(file, 1 << 10, 3).close();
+                fail();
+            } catch (IllegalStateException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("Ring buffer has a capacity of 1024 and 2 readers"));
+            }
+            // rejected before the file is mapped at a larger size
+            assertEquals(length, file.length());
+        } finally {
+            deleteIfPossible(file);
+        }
+    }
+}
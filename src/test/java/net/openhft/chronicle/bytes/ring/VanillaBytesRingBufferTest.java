@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesRingBuffer;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+
+import static org.junit.Assert.*;
+
+public class VanillaBytesRingBufferTest extends BytesTestCommon {
+
+    @Test
+    public void offerAndRead() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(VanillaBytesRingBuffer.sizeFor(64));
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        try (VanillaBytesRingBuffer ring = new VanillaBytesRingBuffer(store)) {
+            assertEquals(64, ring.capacity());
+            assertTrue(ring.isEmpty());
+            assertFalse(ring.read(bytes));
+            assertEquals(1, ring.getAndClearMissedReadCount());
+
+            assertTrue(ring.offer(Bytes.from("hello")));
+            assertTrue(ring.offer(Bytes.from("world!")));
+            assertEquals(32, ring.readRemaining());
+            assertEquals(2, ring.getAndClearWriteCount());
+
+            assertTrue(ring.read(bytes));
+            assertEquals("hello", bytes.toString());
+            bytes.clear();
+            assertTrue(ring.read(bytes));
+            assertEquals("world!", bytes.toString());
+            assertTrue(ring.isEmpty());
+            assertEquals(2, ring.getAndClearReadCount());
+            assertEquals(32, ring.minNumberOfWriteBytesRemaining());
+            assertEquals(Long.MAX_VALUE, ring.minNumberOfWriteBytesRemaining());
+        } finally {
+            store.releaseLast();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void wrapsAroundAndRejectsWhenFull() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(VanillaBytesRingBuffer.sizeFor(64));
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        try (VanillaBytesRingBuffer ring = new VanillaBytesRingBuffer(store)) {
+            for (int i = 0; i < 100; i++) {
+                String text = "message-" + i + "-" + (i * i);
+                assertTrue(ring.offer(Bytes.from(text)));
+                bytes.clear();
+                assertTrue(ring.read(bytes));
+                assertEquals(text, bytes.toString());
+            }
+
+            int count = 0;
+            while (ring.offer(Bytes.from("0123456789")))
+                count++;
+            assertEquals(4, count);
+            assertEquals(1, ring.getAndClearMissedWriteCount());
+            assertEquals(64, ring.readRemaining());
+            assertEquals(64, ring.readers().get(0).behind());
+
+            ring.clear();
+            assertTrue(ring.isEmpty());
+            assertFalse(ring.read(bytes));
+        } finally {
+            store.releaseLast();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void messageLargerThanCapacity() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(VanillaBytesRingBuffer.sizeFor(16));
+        try (VanillaBytesRingBuffer ring = new VanillaBytesRingBuffer(store)) {
+            ring.offer(Bytes.from("more than sixteen bytes"));
+        } finally {
+            store.releaseLast();
+        }
+    }
+
+    @Test
+    public void newInstanceFallsBackToVanilla() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(128));
+        try (BytesRingBuffer ring = BytesRingBuffer.newInstance(store)) {
+            assertTrue(ring instanceof VanillaBytesRingBuffer);
+            assertEquals(128, ring.capacity());
+        } finally {
+            store.releaseLast();
+        }
+    }
+
+    @Test
+    public void producerAndConsumerThreads()
+            throws InterruptedException {
+        final int messages = 100_000;
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(VanillaBytesRingBuffer.sizeFor(1 << 10));
+        try (VanillaBytesRingBuffer ring = new VanillaBytesRingBuffer(store)) {
+            Thread producer = new Thread(() -> {
+                Bytes<?> message = Bytes.allocateElasticOnHeap(16);
+                for (int i = 0; i < messages; i++) {
+                    message.clear().writeInt(i).writeLong(i * 3L);
+                    while (!ring.offer(message))
+                        Thread.yield();
+                }
+            });
+            producer.start();
+
+            Bytes<?> bytes = Bytes.allocateElasticOnHeap(16);
+            for (int i = 0; i < messages; i++) {
+                bytes.clear();
+                while (!ring.read(bytes))
+                    Thread.yield();
+                assertEquals(i, bytes.readInt());
+                assertEquals(i * 3L, bytes.readLong());
+            }
+            producer.join();
+            assertTrue(ring.isEmpty());
+        } finally {
+            store.releaseLast();
+        }
+    }
+}
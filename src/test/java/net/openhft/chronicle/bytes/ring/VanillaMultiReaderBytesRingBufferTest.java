@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesRingBuffer;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import net.openhft.chronicle.bytes.MultiReaderBytesRingBuffer;
+import net.openhft.chronicle.bytes.RingBufferReader;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VanillaMultiReaderBytesRingBufferTest extends BytesTestCommon {
+
+    @Test
+    public void eachReaderSeesEveryMessage() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(128, 2));
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 2)) {
+            assertTrue(ring instanceof VanillaMultiReaderBytesRingBuffer);
+            RingBufferReader reader0 = ring.createReader(0);
+            RingBufferReader reader1 = ring.createReader(1);
+
+            assertTrue(ring.offer(Bytes.from("one")));
+            assertTrue(ring.offer(Bytes.from("two")));
+
+            assertTrue(reader0.read(bytes));
+            assertEquals("one", bytes.toString());
+            assertEquals(8, reader0.behind());
+            assertEquals(16, reader1.behind());
+            assertEquals(16, ring.readRemaining());
+
+            bytes.clear();
+            assertTrue(reader1.read(bytes));
+            assertEquals("one", bytes.toString());
+            bytes.clear();
+            assertTrue(reader1.read(bytes));
+            assertEquals("two", bytes.toString());
+            assertFalse(reader1.read(bytes));
+            assertEquals(8, ring.readRemaining());
+            // sampled as messages are read, even though producers never ran short of space
+            assertEquals(128 - 16, ring.minNumberOfWriteBytesRemaining());
+        } finally {
+            store.releaseLast();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void offerBeforeAReaderIsCreated() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(64, 2));
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 2)) {
+            assertTrue(ring.offer(Bytes.from("one")));
+            assertTrue(ring.read(bytes));
+            assertEquals("one", bytes.toString());
+
+            // the reader not yet created holds back producers
+            int count = 1;
+            while (ring.offer(Bytes.from("0123456789")))
+                count++;
+            assertEquals(4, count);
+
+            RingBufferReader reader1 = ring.createReader(1);
+            bytes.clear();
+            assertTrue(reader1.read(bytes));
+            assertEquals("one", bytes.toString());
+        } finally {
+            store.releaseLast();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readerIdMustBeInRange() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(64, 2));
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 2)) {
+            ring.createReader(2);
+        } finally {
+            store.releaseLast();
+        }
+    }
+
+    @Test
+    public void slowestReaderLimitsWriters() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(64, 2));
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 2)) {
+            RingBufferReader fast = ring.createReader(0);
+            RingBufferReader slow = ring.createReader(1);
+
+            int count = 0;
+            while (ring.offer(Bytes.from("0123456789")))
+                count++;
+            assertEquals(4, count);
+            assertEquals(0, ring.minNumberOfWriteBytesRemaining());
+
+            while (fast.read(bytes))
+                bytes.clear();
+            assertFalse(ring.offer(Bytes.from("0123456789")));
+
+            slow.stop();
+            assertTrue(slow.isStopped());
+            assertTrue(ring.offer(Bytes.from("0123456789")));
+
+            // reopening a stopped reader starts it at the end
+            assertSame(slow, ring.createReader(1));
+            assertFalse(slow.isStopped());
+            assertTrue(slow.isEmpty());
+        } finally {
+            store.releaseLast();
+            bytes.releaseLast();
+        }
+    }
+
+    @Test
+    public void closingAReaderStopsIt() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(64, 1));
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 1)) {
+            RingBufferReader reader = ring.createReader();
+            assertFalse(reader.isStopped());
+            reader.close();
+            // no longer holds back producers
+            assertTrue(reader.isStopped());
+            for (int i = 0; i < 10; i++)
+                assertTrue(ring.offer(Bytes.from("0123456789")));
+        } finally {
+            store.releaseLast();
+        }
+    }
+
+    @Test
+    public void beforeAndAfterReadInPlace() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(64, 1));
+        Bytes<?> bytes = store.bytesForRead();
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 1)) {
+            RingBufferReader reader = ring.createReader();
+            for (int i = 0; i < 20; i++) {
+                // 24 byte records, so padding is needed to avoid wrapping
+                String text = "message-" + (100000 + i);
+                assertTrue(ring.offer(Bytes.from(text)));
+                long next = reader.beforeRead(bytes);
+                assertEquals(text, bytes.toString());
+                reader.afterRead(next);
+                assertTrue(reader.isEmpty());
+            }
+            assertEquals(20, reader.getAndClearReadCount());
+        } finally {
+            bytes.releaseLast();
+            store.releaseLast();
+        }
+    }
+
+    @Test
+    public void drainToReadsInPlace() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(128, 1));
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 1)) {
+            RingBufferReader reader = ring.createReader();
+            List<String> read = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                assertTrue(ring.offer(Bytes.from("message-" + (100000 + i))));
+
+            assertEquals(3, reader.drainTo(bytes -> read.add(bytes.toString()), 3));
+            assertEquals(2, reader.drainTo(bytes -> read.add(bytes.toString()), 10));
+            assertEquals(0, reader.drainTo(bytes -> read.add(bytes.toString()), 10));
+            assertEquals("[message-100000, message-100001, message-100002, message-100003, message-100004]", read.toString());
+            assertTrue(reader.isEmpty());
+            assertEquals(5, reader.getAndClearReadCount());
+            assertEquals(1, reader.getAndClearMissedReadCount());
+
+            // a message which fails is not consumed
+            assertTrue(ring.offer(Bytes.from("fails")));
+            try {
+                reader.drainTo(bytes -> {
+                    throw new IllegalStateException();
+                }, 10);
+                fail();
+            } catch (IllegalStateException expected) {
+                // expected
+            }
+            assertEquals(1, reader.drainTo(bytes -> read.add(bytes.toString()), 10));
+            assertEquals("fails", read.get(5));
+        } finally {
+            store.releaseLast();
+        }
+    }
+
+    @Test
+    public void multipleProducers()
+            throws InterruptedException {
+        final int producers = 3;
+        final int messages = 20_000;
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(1 << 12, 2));
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 2)) {
+            RingBufferReader[] readers = {ring.createReader(0), ring.createReader(1)};
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                final int producer = p;
+                Thread thread = new Thread(() -> {
+                    Bytes<?> message = Bytes.allocateElasticOnHeap(16);
+                    for (int i = 0; i < messages; i++) {
+                        message.clear().writeInt(producer).writeInt(i);
+                        while (!ring.offer(message))
+                            Thread.yield();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+
+            int[][] expected = new int[readers.length][producers];
+            Bytes<?> bytes = Bytes.allocateElasticOnHeap(16);
+            for (int total = 0; total < producers * messages * readers.length; ) {
+                for (int r = 0; r < readers.length; r++) {
+                    bytes.clear();
+                    if (!readers[r].read(bytes))
+                        continue;
+                    int producer = bytes.readInt();
+                    assertEquals(expected[r][producer]++, bytes.readInt());
+                    total++;
+                }
+            }
+            for (Thread thread : threads)
+                thread.join();
+            assertTrue(ring.isEmpty());
+        } finally {
+            store.releaseLast();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016-2022 chronicle.software
+ *
+ *     https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.bytes.ring;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesRingBuffer;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.BytesTestCommon;
+import net.openhft.chronicle.bytes.MultiReaderBytesRingBuffer;
+import net.openhft.chronicle.bytes.RingBufferReader;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WaitStrategyTest extends BytesTestCommon {
+
+    @Test
+    public void timedGivesUp() {
+        WaitStrategy waitStrategy = WaitStrategy.timed(WaitStrategy.spinThenYield(10), 20, TimeUnit.MILLISECONDS);
+        waitStrategy.reset();
+        long start = System.nanoTime();
+        int count = 0;
+        while (waitStrategy.idle())
+            count++;
+        assertTrue(count > 10);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidParkTimes() {
+        WaitStrategy.spinThenPark(10, 1000, 100);
+    }
+
+    @Test
+    public void offerGivesUpWhenFull() {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(64));
+        try (BytesRingBuffer ring = BytesRingBuffer.newInstance(store)) {
+            WaitStrategy waitStrategy = WaitStrategy.timed(WaitStrategy.busySpin(), 1, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < 4; i++)
+                assertTrue(ring.offer(Bytes.from("0123456789"), waitStrategy));
+            assertFalse(ring.offer(Bytes.from("0123456789"), waitStrategy));
+        } finally {
+            store.releaseLast();
+        }
+    }
+
+    @Test
+    public void readerParksUntilMessage()
+            throws InterruptedException {
+        BytesStore<?, Void> store = BytesStore.nativeStoreWithFixedCapacity(BytesRingBuffer.sizeFor(1 << 10, 1));
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        try (MultiReaderBytesRingBuffer ring = BytesRingBuffer.newInstance(store, 1)) {
+            RingBufferReader reader = ring.createReader();
+            Thread producer = new Thread(() -> {
+                WaitStrategy waitStrategy = WaitStrategy.busySpin();
+                for (int i = 0; i < 1000; i++)
+                    ring.offer(Bytes.from("message-" + i), waitStrategy);
+            });
+            producer.start();
+
+            WaitStrategy waitStrategy = WaitStrategy.timed(WaitStrategy.spinThenPark(100, 1_000, 1_000_000), 10, TimeUnit.SECONDS);
+            for (int i = 0; i < 1000; i++) {
+                bytes.clear();
+                assertTrue(reader.read(bytes, waitStrategy));
+                assertEquals("message-" + i, bytes.toString());
+            }
+            producer.join();
+            assertFalse(reader.read(bytes, WaitStrategy.timed(WaitStrategy.busySpin(), 1, TimeUnit.MILLISECONDS)));
+        } finally {
+            bytes.releaseLast();
+            store.releaseLast();
+        }
+    }
+}